@@ -0,0 +1,89 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.services.MaterialCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ítems calculados por segundo (perfil, vidrio y herrajes por ítem más los totales) para {@value #ITEMS} ítems:
+ * <ul>
+ *   <li>{@code doubleWithBigDecimal}: double por ítem y BigDecimal.setScale(3, HALF_UP) por valor (antes).</li>
+ *   <li>{@code fixedPoint}: {@link MaterialCalculator} en mm / mm² sobre arrays primitivos reutilizados (después).</li>
+ * </ul>
+ * El profiler "gc" (ver build.gradle) informa gc.alloc.rate.norm: bytes asignados por operación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MaterialCalculatorBenchmark {
+    static final int ITEMS = 1_000;
+
+    private final int[] widths = new int[ITEMS];
+    private final int[] heights = new int[ITEMS];
+    private final int[] quantities = new int[ITEMS];
+    private final long[] profileOut = new long[ITEMS];
+    private final long[] glassOut = new long[ITEMS];
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < ITEMS; i++) {
+            widths[i] = random.nextInt(300, 3000);
+            heights[i] = random.nextInt(300, 3000);
+            quantities[i] = random.nextInt(1, 20);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void doubleWithBigDecimal(Blackhole bh) {
+        double totalProfile = 0;
+        double totalGlass = 0;
+        int totalHardware = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            double profile = round(2.0 * (widths[i] + heights[i]) / 1000.0 * quantities[i]);
+            double glass = round((widths[i] * heights[i]) / 1_000_000.0 * quantities[i]);
+            bh.consume(profile);
+            bh.consume(glass);
+            totalProfile += profile;
+            totalGlass += glass;
+            totalHardware += quantities[i];
+        }
+        bh.consume(round(totalProfile));
+        bh.consume(round(totalGlass));
+        bh.consume(totalHardware);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void fixedPoint(Blackhole bh) {
+        long hardware = MaterialCalculator.compute(widths, heights, quantities, ITEMS, profileOut, glassOut);
+        long totalProfile = 0;
+        long totalGlass = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            bh.consume(MaterialCalculator.toMeters(profileOut[i]));
+            bh.consume(MaterialCalculator.toSquareMeters(glassOut[i]));
+            totalProfile += profileOut[i];
+            totalGlass += glassOut[i];
+        }
+        bh.consume(MaterialCalculator.toMeters(totalProfile));
+        bh.consume(MaterialCalculator.toSquareMeters(totalGlass));
+        bh.consume(hardware);
+    }
+
+    private static double round(double v) {
+        return BigDecimal.valueOf(v).setScale(3, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.dto.ProductionOrderItemDto;
+import com.example.demo.services.ProductionOrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ítems insertados por segundo con {@link ProductionOrderService#addItems} para una orden nueva de {@value #ITEMS}
+ * ventanas, con la aplicación real levantada: Hibernate, ids de secuencia pooled y el batching configurado.
+ * <ul>
+ *   <li>{@code batchSize=1}: un INSERT por ítem (sin batching).</li>
+ *   <li>{@code batchSize=50}: INSERT en lotes de 50, como en application.properties.</li>
+ * </ul>
+ * Por defecto corre contra H2 en memoria, que no tiene red: la diferencia ahí es sólo el costo del lado de la base.
+ * Para medir los viajes de red reales, apuntar a PostgreSQL con
+ * {@code -Dbench.datasource.url=jdbc:postgresql://... -Dbench.datasource.username=... -Dbench.datasource.password=...}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderItemInsertBenchmark {
+    static final int ITEMS = 300;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductionOrderService service;
+    private JdbcTemplate jdbcTemplate;
+    private List<ProductionOrderItemDto> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("bench.datasource.url", "jdbc:h2:mem:items_bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=" + url,
+                "spring.datasource.username=" + System.getProperty("bench.datasource.username", "sa"),
+                "spring.datasource.password=" + System.getProperty("bench.datasource.password", ""),
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "security.jwt.secret-key=MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=",
+                "spring.mail.host=localhost",
+                "spring.mail.username=bench@example.com",
+                "spring.mail.password=bench"));
+        if (url.startsWith("jdbc:h2:")) {
+            properties.add("spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        }
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        service = context.getBean(ProductionOrderService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            ProductionOrderItemDto item = new ProductionOrderItemDto();
+            item.setProductType(i % 3 == 0 ? "Door" : "Window");
+            item.setWidthMm(600 + i % 900);
+            item.setHeightMm(800 + i % 1400);
+            item.setQuantity(1 + i % 4);
+            items.add(item);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.update("delete from production_order_items");
+        jdbcTemplate.update("delete from production_orders");
+        jdbcTemplate.update("delete from production_order_events");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public Long addItemsToNewOrder() {
+        ProductionOrderDto order = new ProductionOrderDto();
+        order.setOrderNumber("BENCH");
+        order.setCustomerId(1L);
+        Long orderId = service.create(order).getId();
+        service.addItems(orderId, items);
+        return orderId;
+    }
+}
@@ -1,15 +1,18 @@
 package com.example.demo.config;
 
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.CachingUserDetailsService;
+import com.example.demo.services.PasswordHashingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
 
 @Configuration
 public class ApplicationConfiguration {
@@ -19,14 +22,23 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    UserDetailsService userDetailsService(){
-        return username -> userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    CachingUserDetailsService userDetailsService(
+            MeterRegistry meterRegistry,
+            @Value("${security.user-cache.ttl:5m}") Duration ttl,
+            @Value("${security.user-cache.max-size:10000}") long maxSize
+    ){
+        return new CachingUserDetailsService(userRepository, meterRegistry, ttl, maxSize);
     }
 
     @Bean
-    BCryptPasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    PasswordHashingService passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.hashing.pool-size:4}") int poolSize,
+            @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.hashing.max-wait:2s}") Duration maxWait
+    ){
+        return new PasswordHashingService(strength, poolSize, queueCapacity, maxWait, meterRegistry);
     }
 
     @Bean
@@ -35,11 +47,16 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    AuthenticationProvider authenticationProvider(){
+    AuthenticationProvider authenticationProvider(
+            CachingUserDetailsService userDetailsService,
+            PasswordHashingService passwordEncoder
+    ){
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 
-        authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // re-hashea al costo configurado cuando un login exitoso usa un hash más barato
+        authProvider.setUserDetailsPasswordService(userDetailsService);
 
         return authProvider;
     }
@@ -1,10 +1,15 @@
 package com.example.demo.config;
 
+import com.example.demo.model.User;
 import com.example.demo.services.JwtService;
+import com.example.demo.services.TokenRevocationService;
+import com.example.demo.services.TokenVersionService;
+import com.example.demo.services.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -20,19 +25,33 @@ import java.io.IOException;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    // Rutas públicas donde el token es opcional: si viene y es válido, identifica al usuario (p. ej. en el historial)
+    private static final String OPTIONAL_AUTH_PATH = "/auth/orders";
+
     private final HandlerExceptionResolver handlerExceptionResolver;
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
+    private final TokenRevocationService tokenRevocationService;
+
+    // Si está activo, el principal se arma desde los claims del token en lugar de ir a la base
+    private final boolean statelessPrincipal;
 
     public JwtAuthenticationFilter(
             JwtService jwtService,
             UserDetailsService userDetailsService,
-            HandlerExceptionResolver handlerExceptionResolver
+            TokenVersionService tokenVersionService,
+            TokenRevocationService tokenRevocationService,
+            HandlerExceptionResolver handlerExceptionResolver,
+            @Value("${security.jwt.stateless-principal:false}") boolean statelessPrincipal
     ) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenVersionService = tokenVersionService;
+        this.tokenRevocationService = tokenRevocationService;
         this.handlerExceptionResolver = handlerExceptionResolver;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -49,23 +68,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            final String jwt = authHeader.substring(7);
-            final String userEmail = jwtService.extractUsername(jwt);
-
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-            if (userEmail != null && authentication == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+            try {
+                authenticate(request, authHeader.substring(7));
+            } catch (Exception exception) {
+                // En rutas públicas un token inválido no corta el request: sigue como anónimo
+                if (!isOptionalAuthPath(request)) {
+                    throw exception;
                 }
             }
 
@@ -74,9 +82,44 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             handlerExceptionResolver.resolveException(request, response, null, exception);
         }
     }
+
+    private void authenticate(HttpServletRequest request, String jwt) {
+        final VerifiedToken claims = jwtService.verifyToken(jwt);
+        final String userEmail = claims.subject();
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (userEmail != null && authentication == null && !tokenRevocationService.isRevoked(claims.id())) {
+            User statelessUser = statelessPrincipal ? jwtService.extractPrincipal(claims) : null;
+            UserDetails userDetails = statelessUser != null
+                    ? statelessUser
+                    : this.userDetailsService.loadUserByUsername(userEmail);
+
+            boolean valid = jwtService.isTokenValid(claims, userDetails)
+                    && (statelessUser == null
+                            || tokenVersionService.isCurrent(statelessUser.getId(), statelessUser.getTokenVersion()));
+
+            if (valid) {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        statelessUser != null ? jwtService.extractAuthorities(claims) : userDetails.getAuthorities()
+                );
+
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+            }
+        }
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
-        return path.startsWith("/auth/");
+        return path.startsWith("/auth/") && !isOptionalAuthPath(request);
+    }
+
+    private static boolean isOptionalAuthPath(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.equals(OPTIONAL_AUTH_PATH) || path.startsWith(OPTIONAL_AUTH_PATH + "/");
     }
 }
\ No newline at end of file
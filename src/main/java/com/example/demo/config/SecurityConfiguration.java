@@ -51,7 +51,7 @@ public class SecurityConfiguration {
         return source;
     }
 
-    // --- Cadena 1: solo /auth/** (sin JWT) ---
+    // --- Cadena 1: solo /auth/** (públicas; el JWT sólo se lee en /auth/orders para saber quién opera) ---
     @Bean
     @Order(1)
     public SecurityFilterChain authChain(HttpSecurity http) throws Exception {
@@ -63,8 +63,9 @@ public class SecurityConfiguration {
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/auth/**").permitAll()
                 )
-                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
-        // Importante: NO agregamos el jwtAuthenticationFilter aquí
+                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // Corre antes del filtro anónimo; fuera de /auth/orders no hace nada (ver shouldNotFilter)
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 
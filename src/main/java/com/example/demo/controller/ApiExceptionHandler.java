@@ -0,0 +1,36 @@
+package com.example.demo.controller;
+
+import com.example.demo.services.OrderStatusConflictException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // Responde directo (sin pasar por /error) para que 429/503 lleguen limpios al cliente
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<String> handleResponseStatus(ResponseStatusException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatusCode());
+        if (e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                || e.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return response.body(e.getReason());
+    }
+
+    // Transición de estado perdida contra otro request: el cliente debe releer la orden
+    @ExceptionHandler(OrderStatusConflictException.class)
+    public ResponseEntity<String> handleStatusConflict(OrderStatusConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLock(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("The resource was modified concurrently, reload it and retry");
+    }
+}
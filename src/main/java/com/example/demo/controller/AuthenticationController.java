@@ -2,12 +2,17 @@ package com.example.demo.controller;
 
 
 import com.example.demo.dto.LoginUserDto;
+import com.example.demo.dto.RefreshTokenDto;
 import com.example.demo.dto.RegisterUserDto;
 import com.example.demo.dto.VerifyUserDto;
 import com.example.demo.model.User;
 import com.example.demo.responses.LoginResponse;
 import com.example.demo.services.AuthenticationService;
 import com.example.demo.services.JwtService;
+import com.example.demo.services.LoginRateLimiter;
+import com.example.demo.services.RefreshTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,10 +22,19 @@ import org.springframework.web.bind.annotation.*;
 public class AuthenticationController {
     private final JwtService jwtService;
     private final AuthenticationService authenticationService;
+    private final LoginRateLimiter rateLimiter;
+    private final RefreshTokenService refreshTokenService;
 
-    public AuthenticationController(JwtService jwtService, AuthenticationService authenticationService) {
+    public AuthenticationController(
+            JwtService jwtService,
+            AuthenticationService authenticationService,
+            LoginRateLimiter rateLimiter,
+            RefreshTokenService refreshTokenService
+    ) {
         this.jwtService = jwtService;
         this.authenticationService = authenticationService;
+        this.rateLimiter = rateLimiter;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("/signup")
@@ -30,15 +44,47 @@ public class AuthenticationController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> authenticate(@RequestBody LoginUserDto loginUserDto){
+    public ResponseEntity<LoginResponse> authenticate(@RequestBody LoginUserDto loginUserDto, HttpServletRequest request){
+        rateLimiter.acquire(request.getRemoteAddr(), loginUserDto.getEmail());
         User authenticatedUser = authenticationService.authenticate(loginUserDto);
         String jwtToken = jwtService.generateToken(authenticatedUser);
-        LoginResponse loginResponse = new LoginResponse(jwtToken, jwtService.getExpirationTime());
+        String refreshToken = refreshTokenService.issue(authenticatedUser);
+        LoginResponse loginResponse = new LoginResponse(jwtToken, jwtService.getExpirationTime(), refreshToken);
         return ResponseEntity.ok(loginResponse);
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenDto refreshTokenDto){
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokenDto.getRefreshToken());
+            String jwtToken = jwtService.generateToken(rotation.user());
+            return ResponseEntity.ok(new LoginResponse(jwtToken, jwtService.getExpirationTime(), rotation.refreshToken()));
+        } catch (RuntimeException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) RefreshTokenDto refreshTokenDto,
+            @RequestParam(defaultValue = "false") boolean allDevices
+    ){
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Missing bearer token");
+        }
+        try {
+            String refreshToken = refreshTokenDto != null ? refreshTokenDto.getRefreshToken() : null;
+            refreshTokenService.logout(authorization.substring(7), refreshToken, allDevices);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+
     @PostMapping("/verify")
-    public ResponseEntity<?> verifyUser(@RequestBody VerifyUserDto verifyUserDto){
+    public ResponseEntity<?> verifyUser(@RequestBody VerifyUserDto verifyUserDto, HttpServletRequest request){
+        rateLimiter.acquire(request.getRemoteAddr(), verifyUserDto.getEmail());
         try {
             authenticationService.verifyUser(verifyUserDto);
             return ResponseEntity.ok().build();
@@ -48,7 +94,8 @@ public class AuthenticationController {
     }
 
     @PostMapping("/resend")
-    public ResponseEntity<?> resendVerificationCode(@RequestParam String email){
+    public ResponseEntity<?> resendVerificationCode(@RequestParam String email, HttpServletRequest request){
+        rateLimiter.acquire(request.getRemoteAddr(), email);
         try{
             authenticationService.resendVerificationCode(email);
             return ResponseEntity.ok().build();
@@ -2,23 +2,46 @@ package com.example.demo.controller;
 
 import com.example.demo.model.OrderStatus;
 import com.example.demo.services.OrderStatusService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/auth/order-statuses")
 public class OrderStatusController {
+    // Casi nunca cambian: el navegador los reusa unos minutos y después revalida con el ETag
+    private static final CacheControl CACHE = CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate();
+
     private final OrderStatusService service;
 
     public OrderStatusController(OrderStatusService service) {
         this.service = service;
     }
 
-    @GetMapping
-    public List<OrderStatus> getAllStatuses() {
-        return service.getAllStatuses();
+    /** Devuelve los bytes ya serializados; con If-None-Match vigente, 304 sin cuerpo. */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAllStatuses(WebRequest request) {
+        OrderStatusService.StatusesJson statuses = service.getAllStatusesJson();
+        if (request.checkNotModified(statuses.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CACHE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CACHE)
+                .body(statuses.body());
+    }
+
+    @PostMapping("/reload")
+    public List<OrderStatus> reload() {
+        return service.reload();
     }
 }
@@ -1,13 +1,26 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkTransitionDto;
+import com.example.demo.dto.BulkTransitionResultDto;
 import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.dto.ProductionOrderPage;
 import com.example.demo.dto.ProductionOrderItemDto;
+import com.example.demo.dto.ProductionOrderItemsPatchDto;
 import com.example.demo.dto.ProductionOrderSummaryDto;
+import com.example.demo.model.ProductionOrderEvent;
 import com.example.demo.model.ProductionOrderItem;
+import com.example.demo.services.OrderChangeBroadcaster;
+import com.example.demo.services.OrderEventLog;
 import com.example.demo.services.ProductionOrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -17,7 +30,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductionOrderController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // El cliente puede guardar la respuesta pero debe revalidarla siempre con el ETag
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final ProductionOrderService service;
+    private final OrderEventLog eventLog;
+    private final OrderChangeBroadcaster changeBroadcaster;
 
     // =======================
     // CRUD de ProductionOrder
@@ -28,14 +48,44 @@ public class ProductionOrderController {
         return ResponseEntity.ok(service.create(dto));
     }
 
+    /**
+     * Listado paginado por cursor. La página siguiente se pide pasando el header X-Next-Cursor
+     * de la respuesta como ?cursor=; si no viene el header, no hay más.
+     * Sin ?limit= ni ?cursor= devuelve el listado completo, como siempre.
+     */
     @GetMapping
-    public ResponseEntity<List<ProductionOrderDto>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<ProductionOrderDto>> getAll(@ModelAttribute ProductionOrderFilter filter,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit) {
+        ProductionOrderPage page = service.getPage(filter, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.orders());
     }
 
+    /**
+     * Cambios de órdenes en vivo (Server-Sent Events), para reemplazar el polling de GET /auth/orders.
+     * Con ?teamId= sólo llegan las órdenes de ese equipo; con ?statusId= las que entran o salen de ese estado.
+     * Cada evento se llama como el tipo de cambio (CREATED, STATUS_CHANGED, ...) y trae un OrderChangeDto en JSON.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) Long teamId,
+                             @RequestParam(required = false) Short statusId) {
+        return changeBroadcaster.subscribe(teamId, statusId);
+    }
+
+    /**
+     * ETag = versión de la orden. Si el cliente ya la tiene, 304 sin cargar la orden.
+     * La versión se lee antes que la orden: si cambia en el medio el ETag queda viejo y el próximo GET la trae completa.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductionOrderDto> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getById(id));
+    public ResponseEntity<ProductionOrderDto> getById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(versionTag(service.getVersion(id)))) {
+            return notModified();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(service.getById(id));
     }
 
     @PutMapping("/{id}")
@@ -61,6 +111,13 @@ public class ProductionOrderController {
         return ResponseEntity.ok("Items added successfully");
     }
 
+    /** Cambios parciales: sólo los ítems a agregar/modificar y los ids a borrar. */
+    @PatchMapping("/{id}/items")
+    public ResponseEntity<List<ProductionOrderItem>> patchItems(@PathVariable Long id,
+                                                                @Valid @RequestBody ProductionOrderItemsPatchDto patch) {
+        return ResponseEntity.ok(service.patchItems(id, patch));
+    }
+
     @GetMapping("/{id}/items")
     public ResponseEntity<List<ProductionOrderItem>> getItems(@PathVariable Long id) {
         return ResponseEntity.ok(service.getItemsByOrderId(id));
@@ -76,9 +133,27 @@ public class ProductionOrderController {
     // Summary
     // =======================
 
+    /**
+     * Cambiar los ítems sube la versión de la orden, así que sirve también como ETag del summary. Se usa la
+     * versión guardada en el propio summary (leída junto con sus ítems), no una consulta aparte.
+     */
     @GetMapping("/{id}/summary")
-    public ResponseEntity<ProductionOrderSummaryDto> getSummary(@PathVariable Long id) {
-        return ResponseEntity.ok(service.buildSummary(id));
+    public ResponseEntity<ProductionOrderSummaryDto> getSummary(@PathVariable Long id, WebRequest request) {
+        ProductionOrderSummaryDto summary = service.buildSummary(id);
+        if (request.checkNotModified(versionTag(summary.getVersion()))) {
+            return notModified();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(summary);
+    }
+
+    // =======================
+    // Historial
+    // =======================
+
+    /** Alta, cambios, ítems y transiciones de la orden, del más viejo al más nuevo. También de órdenes borradas. */
+    @GetMapping("/{id}/events")
+    public ResponseEntity<List<ProductionOrderEvent>> getEvents(@PathVariable Long id) {
+        return ResponseEntity.ok(eventLog.timeline(id));
     }
 
     // =======================
@@ -104,4 +179,19 @@ public class ProductionOrderController {
     public ResponseEntity<ProductionOrderDto> deliver(@PathVariable Long id) {
         return ResponseEntity.ok(service.deliver(id));
     }
-}
\ No newline at end of file
+
+    /** Misma transición para varias órdenes; informa por id si se aplicó, estaba en otro estado o no existe. */
+    @PostMapping("/transitions")
+    public ResponseEntity<BulkTransitionResultDto> transitionAll(@RequestBody BulkTransitionDto request) {
+        return ResponseEntity.ok(service.transitionAll(request.getTransition(), request.getIds()));
+    }
+
+    private static String versionTag(long version) {
+        return "\"v" + version + "\"";
+    }
+
+    // checkNotModified ya dejó el 304 y el ETag en la respuesta
+    private static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+    }
+}
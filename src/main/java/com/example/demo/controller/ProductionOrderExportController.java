@@ -0,0 +1,54 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.services.ProductionOrderExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Descarga de órdenes con los mismos filtros que GET /auth/orders. La respuesta se escribe mientras se lee
+ * la base (?format=ndjson|csv, ?items=true para incluir los ítems), sin armar la lista en memoria.
+ */
+@RestController
+@RequestMapping("/auth/orders/export")
+@RequiredArgsConstructor
+public class ProductionOrderExportController {
+
+    private final ProductionOrderExportService service;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(@ModelAttribute ProductionOrderFilter filter,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestParam(defaultValue = "false") boolean items) {
+        ProductionOrderExportService.Format parsed = switch (format.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> ProductionOrderExportService.Format.NDJSON;
+            case "csv" -> ProductionOrderExportService.Format.CSV;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        };
+        MediaType contentType = parsed == ProductionOrderExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON;
+        StreamingResponseBody body = out -> service.export(filter, items, parsed, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + parsed.name().toLowerCase(Locale.ROOT))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ImportReportDto;
+import com.example.demo.services.ProductionOrderImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Carga masiva de órdenes con sus ítems. El cuerpo se lee en streaming directo del request,
+ * así que el tamaño del archivo no limita la memoria. Responde 200 con el reporte aunque haya filas rechazadas,
+ * y 500 con el reporte parcial si la importación se cortó por un error de la base.
+ */
+@RestController
+@RequestMapping("/auth/orders/import")
+@RequiredArgsConstructor
+public class ProductionOrderImportController {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final ProductionOrderImportService service;
+
+    @PostMapping(consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<ImportReportDto> importCsv(InputStream body) throws IOException {
+        return respond(service.importCsv(body));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReportDto> importNdjson(InputStream body) throws IOException {
+        return respond(service.importNdjson(body));
+    }
+
+    private static ResponseEntity<ImportReportDto> respond(ImportReportDto report) {
+        return ResponseEntity.status(report.isAborted() ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK).body(report);
+    }
+}
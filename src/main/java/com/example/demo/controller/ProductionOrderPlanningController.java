@@ -0,0 +1,28 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.MaterialPlanDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.services.ProductionOrderPlanningService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Material necesario para un conjunto de órdenes (mismos filtros que GET /auth/orders),
+ * p. ej. ?statusId=2&startFrom=2026-03-02&startTo=2026-03-08 para lo programado en una semana.
+ */
+@RestController
+@RequestMapping("/auth/orders/planning")
+@RequiredArgsConstructor
+public class ProductionOrderPlanningController {
+
+    private final ProductionOrderPlanningService service;
+
+    @GetMapping
+    public ResponseEntity<MaterialPlanDto> plan(@ModelAttribute ProductionOrderFilter filter) {
+        return ResponseEntity.ok(service.plan(filter));
+    }
+}
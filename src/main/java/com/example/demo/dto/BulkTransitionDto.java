@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import com.example.demo.services.OrderTransition;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkTransitionDto {
+    // CONFIRM, START, FINISH o DELIVER
+    private OrderTransition transition;
+
+    @Builder.Default
+    private List<Long> ids = new ArrayList<>();
+}
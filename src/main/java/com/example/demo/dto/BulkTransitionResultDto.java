@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import com.example.demo.services.OrderTransition;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Resultado de una transición masiva: una entrada por id pedido, en el orden en que llegaron. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransitionResultDto {
+    private OrderTransition transition;
+    private int applied;
+    private List<Outcome> outcomes;
+
+    public enum Result { APPLIED, WRONG_STATE, NOT_FOUND }
+
+    /** {@code statusId} es el estado en que quedó la orden (null si no existe). */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Outcome {
+        private Long id;
+        private Result result;
+        private Short statusId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportReportDto {
+    private long ordersImported;
+    private long itemsImported;
+    private long ordersRejected;
+    private long durationMillis;
+
+    // Se listan como mucho orders.import.max-errors; el resto sólo cuenta en ordersRejected
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    // Error de base que no se pudo atribuir a una orden: se cortó la importación y el resto del archivo no se leyó
+    private boolean aborted;
+    private String abortReason;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String orderNumber;
+        private String message;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Requerimientos de material sumados sobre todas las órdenes de un filtro (GET /auth/orders/planning). */
+@Data @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaterialPlanDto {
+    private long orderCount;
+    private long itemCount;
+    private Line totals;
+    private List<Line> byProfile;
+    private List<Line> byGlassType;
+    private List<Line> byHardwareKit;
+    private List<Line> byTeam;
+
+    /** Totales de los ítems que comparten {@code id} (perfil, tipo de vidrio, kit o equipo; null = sin asignar). */
+    @Data @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long id;
+        private long itemCount;
+        private double profileMeters;
+        private double glassSquareMeters;
+        private long hardwareUnits;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.ProductionOrderEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/** Cambio de una orden tal como se manda por GET /auth/orders/stream. {@code statusId} es el estado en que quedó. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderChangeDto {
+    private ProductionOrderEvent.Type type;
+    private Long orderId;
+    private Long teamId;
+    private Short statusId;
+    private Short fromStatus;
+    private Short toStatus;
+    private String actor;
+    private Instant occurredAt;
+    private String details;
+}
@@ -31,4 +31,7 @@ public class ProductionOrderDto {
     private String endDate;
     private String notes;
     private Instant createdAt;
+
+    // Versión leída por el cliente; si viene en un PUT y ya cambió, responde 409
+    private Long version;
 }
@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Una orden con sus ítems tal como llega en la importación masiva (una línea NDJSON o un grupo de filas CSV). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductionOrderImportDto {
+    private String orderNumber;
+    private Long customerId;
+    private Long teamId;
+    private Short statusId;
+    private String startDate;
+    private String endDate;
+    private String notes;
+
+    @Builder.Default
+    private List<ProductionOrderItemDto> items = new ArrayList<>();
+}
@@ -1,6 +1,8 @@
 package com.example.demo.dto;
 
 public class ProductionOrderItemDto {
+    // Opcional: si viene, se actualiza ese ítem de la orden; si no, se inserta uno nuevo
+    private Long id;
     private String productType;
     private Integer widthMm;
     private Integer heightMm;
@@ -10,6 +12,8 @@ public class ProductionOrderItemDto {
     private Long hardwareKitId;
     private String notes;
 
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
 
     public String getProductType() { return productType; }
     public void setProductType(String productType) { this.productType = productType; }
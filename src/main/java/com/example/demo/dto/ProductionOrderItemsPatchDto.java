@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Cambios parciales sobre los ítems de una orden: lo que no se menciona queda como está. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductionOrderItemsPatchDto {
+    // Con id: actualiza ese ítem; sin id: lo agrega
+    @Valid
+    @Builder.Default
+    private List<ProductionOrderItemDto> upsert = new ArrayList<>();
+
+    // Ids de ítems a borrar
+    @Builder.Default
+    private List<Long> delete = new ArrayList<>();
+}
@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/** Una página de órdenes; {@code nextCursor} es null cuando no hay más. */
+public record ProductionOrderPage(List<ProductionOrderDto> orders, String nextCursor) {
+}
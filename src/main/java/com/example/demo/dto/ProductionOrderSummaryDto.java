@@ -1,31 +1,47 @@
 package com.example.demo.dto;
 
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
 import java.util.List;
 
-@Data @Builder
+/** Inmutable: la misma instancia se comparte entre requests desde ProductionOrderSummaryCache. */
+@Value
 public class ProductionOrderSummaryDto {
-    private Long orderId;
-    private List<ItemSummary> items;
-    private Requirements requirements;
+    Long orderId;
+    // Versión de la orden leída antes que los ítems: el ETag del summary sale de acá
+    Long version;
+    List<ItemSummary> items;
+    Requirements requirements;
 
-    @Data @Builder
+    @Builder
+    public ProductionOrderSummaryDto(Long orderId, Long version, List<ItemSummary> items, Requirements requirements) {
+        this.orderId = orderId;
+        this.version = version;
+        this.items = items != null ? List.copyOf(items) : List.of();
+        this.requirements = requirements;
+    }
+
+    @Value @Builder
     public static class ItemSummary {
-        private Long id;
-        private String productType;
-        private Integer widthMm;
-        private Integer heightMm;
-        private Integer quantity;
-        private double profileMeters;
-        private double glassSquareMeters;
-        private int hardwareUnits;
+        Long id;
+        String productType;
+        Integer widthMm;
+        Integer heightMm;
+        Integer quantity;
+        double profileMeters;
+        double glassSquareMeters;
+        int hardwareUnits;
+        // Valores exactos sin redondear: sumados dan los totales en mm / mm² de la orden
+        long profileMm;
+        long glassMm2;
     }
 
-    @Data @Builder
+    @Value @Builder
     public static class Requirements {
-        private double totalProfileMeters;
-        private double totalGlassSquareMeters;
-        private int totalHardwareUnits;
+        double totalProfileMeters;
+        double totalGlassSquareMeters;
+        int totalHardwareUnits;
+        long totalProfileMm;
+        long totalGlassMm2;
     }
 }
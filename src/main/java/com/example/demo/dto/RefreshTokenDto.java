@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RefreshTokenDto {
+    private String refreshToken;
+}
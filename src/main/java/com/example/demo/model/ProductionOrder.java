@@ -11,14 +11,24 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "production_orders")
+@Table(name = "production_orders", indexes = {
+        // Keyset de GET /auth/orders, sin filtro y con cada filtro de igualdad como prefijo
+        @Index(name = "idx_production_orders_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_production_orders_status_created_id", columnList = "status_id, created_at, id"),
+        @Index(name = "idx_production_orders_customer_created_id", columnList = "customer_id, created_at, id"),
+        @Index(name = "idx_production_orders_team_created_id", columnList = "team_id, created_at, id"),
+        @Index(name = "idx_production_orders_start_date", columnList = "start_date"),
+        @Index(name = "idx_production_orders_end_date", columnList = "end_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ProductionOrder {
+    // Secuencia con optimizador pooled: un nextval cada 50 ids y los INSERT se pueden agrupar en batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "production_orders_seq")
+    @SequenceGenerator(name = "production_orders_seq", sequenceName = "production_orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "order_uuid", nullable = false, updatable = false, unique = true)
@@ -48,4 +58,8 @@ public class ProductionOrder {
     @Column(name = "created_at", nullable = false, updatable = false)
     @Builder.Default
     private Instant createdAt = Instant.now();
+
+    // null mientras es nueva (así Spring Data la persiste sin merge); Hibernate la inicializa en 0
+    @Version
+    private Long version;
 }
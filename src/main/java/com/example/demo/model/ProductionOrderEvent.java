@@ -0,0 +1,56 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/** Entrada del historial de una orden. Se inserta por JDBC en lotes (OrderEventLog) y nunca se modifica. */
+@Entity
+@Table(name = "production_order_events", indexes = {
+        @Index(name = "idx_production_order_events_order", columnList = "order_id, occurred_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductionOrderEvent {
+    public enum Type { CREATED, UPDATED, ITEMS_CHANGED, STATUS_CHANGED, DELETED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private Type type;
+
+    @Column(name = "from_status")
+    private Short fromStatus;
+
+    @Column(name = "to_status")
+    private Short toStatus;
+
+    private String actor;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    private String details;
+
+    // Equipo y estado de la orden después del evento: no se guardan, sólo los usa el stream SSE para filtrar
+    @Transient
+    @JsonIgnore
+    private Long teamId;
+
+    @Transient
+    @JsonIgnore
+    private Short statusId;
+}
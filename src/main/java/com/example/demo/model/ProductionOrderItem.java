@@ -7,8 +7,10 @@ import java.time.OffsetDateTime;
 @Entity
 @Table(name = "production_order_items")
 public class ProductionOrderItem {
+    // Secuencia con optimizador pooled: un nextval cada 50 ids y los INSERT se pueden agrupar en batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "production_order_items_seq")
+    @SequenceGenerator(name = "production_order_items_seq", sequenceName = "production_order_items_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_id", nullable = false)
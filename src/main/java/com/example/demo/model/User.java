@@ -4,6 +4,8 @@ package com.example.demo.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -12,7 +14,10 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "app_users")
+@Table(name = "app_users", indexes = {
+        @Index(name = "idx_app_users_verification_expiration", columnList = "verification_expiration")
+})
+@DynamicUpdate
 @Getter
 @Setter
 public class User implements UserDetails {
@@ -26,10 +31,13 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String password;
     private boolean enabled;
-    @Column(name = "verification_code")
-    private String verificationCode;
+    // El código vive en VerificationCodeStore; acá sólo queda hasta cuándo la cuenta espera verificación
     @Column(name = "verification_expiration")
     private LocalDateTime verificationCodeExpiresAt;
+    // Se incrementa para invalidar de una vez todos los tokens emitidos al usuario.
+    @Column(name = "token_version", nullable = false)
+    @ColumnDefault("0")
+    private int tokenVersion;
 
 
     public User(String username, String email, String password) {
@@ -0,0 +1,26 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "verification_codes", indexes = {
+        @Index(name = "idx_verification_codes_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VerificationCode {
+    @Id
+    private String email;
+
+    @Column(nullable = false, length = 16)
+    private String code;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // FOR UPDATE SKIP LOCKED: varios nodos pueden drenar la cola sin tomar los mismos mails
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from EmailOutbox e where e.status = com.example.demo.model.EmailOutbox.Status.PENDING "
+            + "and e.nextAttemptAt <= :now order by e.nextAttemptAt, e.id")
+    List<EmailOutbox> lockDueBatch(@Param("now") Instant now, Pageable pageable);
+
+    @Query("select min(e.createdAt) from EmailOutbox e where e.status = com.example.demo.model.EmailOutbox.Status.PENDING")
+    Optional<Instant> findOldestPendingCreatedAt();
+}
@@ -0,0 +1,11 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.ProductionOrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ProductionOrderEventRepository extends JpaRepository<ProductionOrderEvent, Long> {
+
+    List<ProductionOrderEvent> findByOrderIdOrderByOccurredAtAscIdAsc(Long orderId);
+}
@@ -3,13 +3,26 @@ package com.example.demo.repositories;
 
 import com.example.demo.model.ProductionOrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductionOrderItemRepository extends JpaRepository<ProductionOrderItem, Long> {
     List<ProductionOrderItem> findByOrderId(Long OrderId);
-    void deleteByOrderId(Long OrderId);
 
+    List<ProductionOrderItem> findByOrderIdAndIdIn(Long orderId, Collection<Long> ids);
+
+    // Un único DELETE; el derivado deleteByOrderId cargaba cada entidad y la borraba de a una
+    @Modifying
+    @Query("delete from ProductionOrderItem i where i.orderId = :orderId")
+    int deleteAllByOrderId(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("delete from ProductionOrderItem i where i.orderId = :orderId and i.id in :ids")
+    int deleteByOrderIdAndIdIn(@Param("orderId") Long orderId, @Param("ids") Collection<Long> ids);
 }
@@ -1,8 +1,56 @@
 package com.example.demo.repositories;
 
 import com.example.demo.model.ProductionOrder;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductionOrderRepository extends JpaRepository<ProductionOrder, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+public interface ProductionOrderRepository extends JpaRepository<ProductionOrder, Long>,
+        JpaSpecificationExecutor<ProductionOrder> {
+
+    // Transición atómica: sólo cambia las filas que siguen en el estado de origen; las demás quedan igual
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update ProductionOrder o set o.statusId = :to, o.version = o.version + 1
+            where o.id in :ids and o.statusId = :from""")
+    int transitionStatus(@Param("ids") Collection<Long> ids, @Param("from") short from, @Param("to") short to);
+
+    // Igual que transitionStatus, pero además completa el número de orden vacío con prefijo + id.
+    // trim() sólo quita espacios: create/update guardan vacío cualquier número en blanco (tabs, saltos de línea)
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update ProductionOrder o set o.statusId = :to, o.version = o.version + 1,
+                o.orderNumber = case when o.orderNumber is null or trim(o.orderNumber) = ''
+                                     then concat(:numberPrefix, cast(o.id as String))
+                                     else o.orderNumber end
+            where o.id in :ids and o.statusId = :from""")
+    int confirm(@Param("ids") Collection<Long> ids, @Param("from") short from, @Param("to") short to,
+                @Param("numberPrefix") String numberPrefix);
+
+    // Bloquea las filas (en orden de id, sin deadlocks entre lotes) para que el UPDATE posterior sea predecible
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from ProductionOrder o where o.id in :ids order by o.id")
+    List<ProductionOrder> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Cambiar los ítems cambia la orden: sube la versión al hacer commit (ETag, PUT concurrentes)
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select o from ProductionOrder o where o.id = :id")
+    Optional<ProductionOrder> lockForItemChange(@Param("id") Long id);
+
+    @Query("select o.version from ProductionOrder o where o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    Optional<StatusView> findProjectedById(Long id);
+
+    interface StatusView {
+        Short getStatusId();
+    }
 }
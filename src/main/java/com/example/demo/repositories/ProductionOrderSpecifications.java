@@ -0,0 +1,59 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.model.ProductionOrder;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Predicados de listado de órdenes, compartidos por la paginación y cualquier otro recorrido filtrado. */
+public final class ProductionOrderSpecifications {
+
+    /** Orden del keyset: más nuevas primero, con el id como desempate. */
+    public static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private ProductionOrderSpecifications() {
+    }
+
+    public static Specification<ProductionOrder> matching(ProductionOrderFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter == null) {
+                return cb.conjunction();
+            }
+            if (filter.getStatusId() != null) {
+                predicates.add(cb.equal(root.get("statusId"), filter.getStatusId()));
+            }
+            if (filter.getCustomerId() != null) {
+                predicates.add(cb.equal(root.get("customerId"), filter.getCustomerId()));
+            }
+            if (filter.getTeamId() != null) {
+                predicates.add(cb.equal(root.get("teamId"), filter.getTeamId()));
+            }
+            if (filter.getStartFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("startDate"), filter.getStartFrom()));
+            }
+            if (filter.getStartTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("startDate"), filter.getStartTo()));
+            }
+            if (filter.getEndFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("endDate"), filter.getEndFrom()));
+            }
+            if (filter.getEndTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("endDate"), filter.getEndTo()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /** (created_at, id) estrictamente anterior al cursor, en el mismo orden que {@link #KEYSET_SORT}. */
+    public static Specification<ProductionOrder> before(Instant createdAt, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+    }
+}
@@ -2,13 +2,51 @@ package com.example.demo.repositories;
 
 
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
     Optional<User> findByEmail(String email);
-    Optional<User> findByVerificationCode(String verificationCode);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query("update User u set u.verificationCodeExpiresAt = :expiresAt where u.id = :id")
+    int updateVerificationExpiration(@Param("id") Long id, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Keyset por id: cada lote arranca después del último id visto, sin OFFSET
+    @Query("select u.id as id, u.email as email from User u where u.enabled = false "
+            + "and u.verificationCodeExpiresAt < :cutoff and u.id > :afterId order by u.id")
+    List<StaleUser> findStaleUnverified(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Se vuelve a chequear la condición por si alguno se verificó entre el select y el delete
+    @Modifying
+    @Query("delete from User u where u.id in :ids and u.enabled = false and u.verificationCodeExpiresAt < :cutoff")
+    int deleteStaleUnverified(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
+
+    interface StaleUser {
+        Long getId();
+        String getEmail();
+    }
 }
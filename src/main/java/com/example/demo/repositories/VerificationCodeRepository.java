@@ -0,0 +1,17 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.VerificationCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface VerificationCodeRepository extends JpaRepository<VerificationCode, String> {
+
+    // Rango sobre idx_verification_codes_expires_at: no recorre los códigos vigentes
+    @Modifying
+    @Query("delete from VerificationCode v where v.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -8,9 +8,15 @@ import lombok.Setter;
 public class LoginResponse {
     private String token;
     private long expiresIn;
+    private String refreshToken;
 
     public LoginResponse(String token, long expiresIn) {
         this.token = token;
         this.expiresIn = expiresIn;
     }
+
+    public LoginResponse(String token, long expiresIn, String refreshToken) {
+        this(token, expiresIn);
+        this.refreshToken = refreshToken;
+    }
 }
@@ -8,37 +8,55 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
-import java.util.Random;
 
 @Service
 public class AuthenticationService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final CachingUserDetailsService userDetailsService;
+    private final VerificationCodeStore verificationCodeStore;
 
     public AuthenticationService(
             UserRepository userRepository,
             AuthenticationManager authenticationManager,
             PasswordEncoder passwordEncoder,
-            EmailService emailService
+            EmailService emailService,
+            CachingUserDetailsService userDetailsService,
+            VerificationCodeStore verificationCodeStore
     ) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.emailService = emailService;
+        this.userDetailsService = userDetailsService;
+        this.verificationCodeStore = verificationCodeStore;
     }
 
+    @Transactional
     public User signup(RegisterUserDto input) {
         User user = new User(input.getUsername(), input.getEmail(), passwordEncoder.encode(input.getPassword()));
-        user.setVerificationCode(generateVerificationCode());
-        user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(15));
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(15);
+        user.setVerificationCodeExpiresAt(expiresAt);
         user.setEnabled(false);
-        sendVerificationEmail(user);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        String verificationCode = generateVerificationCode();
+        verificationCodeStore.put(saved.getEmail(), verificationCode, toInstant(expiresAt));
+        sendVerificationEmail(saved, verificationCode);
+        userDetailsService.evict(saved.getEmail());
+        return saved;
     }
 
     public User authenticate(LoginUserDto input) {
@@ -62,14 +80,15 @@ public class AuthenticationService {
         Optional<User> optionalUser = userRepository.findByEmail(input.getEmail());
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
-            if (user.getVerificationCodeExpiresAt().isBefore(LocalDateTime.now())) {
-                throw new RuntimeException("Verification code has expired");
-            }
-            if (user.getVerificationCode().equals(input.getVerificationCode())) {
+            VerificationCodeStore.StoredCode stored = verificationCodeStore.find(user.getEmail())
+                    .filter(code -> !code.isExpired(Instant.now()))
+                    .orElseThrow(() -> new RuntimeException("Verification code has expired"));
+            if (codeMatches(stored.code(), input.getVerificationCode())) {
                 user.setEnabled(true);
-                user.setVerificationCode(null);
                 user.setVerificationCodeExpiresAt(null);
                 userRepository.save(user);
+                verificationCodeStore.remove(user.getEmail());
+                userDetailsService.evict(user.getEmail());
             } else {
                 throw new RuntimeException("Invalid verification code");
             }
@@ -78,6 +97,7 @@ public class AuthenticationService {
         }
     }
 
+    @Transactional
     public void resendVerificationCode(String email) {
         Optional<User> optionalUser = userRepository.findByEmail(email);
         if (optionalUser.isPresent()) {
@@ -85,18 +105,20 @@ public class AuthenticationService {
             if (user.isEnabled()) {
                 throw new RuntimeException("Account is already verified");
             }
-            user.setVerificationCode(generateVerificationCode());
-            user.setVerificationCodeExpiresAt(LocalDateTime.now().plusHours(1));
-            sendVerificationEmail(user);
-            userRepository.save(user);
+            // Sólo se actualiza el vencimiento; el código nuevo va al store, no a la fila del usuario
+            LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+            userRepository.updateVerificationExpiration(user.getId(), expiresAt);
+            String verificationCode = generateVerificationCode();
+            verificationCodeStore.put(user.getEmail(), verificationCode, toInstant(expiresAt));
+            sendVerificationEmail(user, verificationCode);
+            userDetailsService.evict(user.getEmail());
         } else {
             throw new RuntimeException("User not found");
         }
     }
 
-    private void sendVerificationEmail(User user) {
+    private void sendVerificationEmail(User user, String verificationCode) {
         String subject = "Account Verification";
-        String verificationCode = user.getVerificationCode();
         String htmlMessage = "<html>"
                 + "<body style=\"font-family: Arial, sans-serif;\">"
                 + "<div style=\"background-color: #f5f5f5; padding: 20px;\">"
@@ -110,16 +132,21 @@ public class AuthenticationService {
                 + "</body>"
                 + "</html>";
 
-        try {
-            emailService.sendVerificationEmail(user.getEmail(), subject, htmlMessage);
-        } catch (Exception e) {
-            // Handle email sending exception
-            e.printStackTrace();
-        }
+        // Se encola en la misma transacción que el usuario; lo envía EmailOutboxSender
+        emailService.sendVerificationEmail(user.getEmail(), subject, htmlMessage);
     }
     private String generateVerificationCode() {
-        Random random = new Random();
-        int code = random.nextInt(900000) + 100000;
+        int code = RANDOM.nextInt(900000) + 100000;
         return String.valueOf(code);
     }
+
+    // Comparación en tiempo constante para no filtrar por timing cuántos dígitos coinciden
+    private static boolean codeMatches(String expected, String provided) {
+        return provided != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), provided.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.example.demo.services;
+
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UserDetailsService con caché acotada (tamaño + TTL) de principals por email.
+ * Expone métricas de hits/misses/evictions como "cache.*{cache=userDetails}".
+ * Quien modifique una fila de app_users debe invalidar la entrada con {@link #evict(String)} o {@link #evictById(Long)}.
+ *
+ * <p>La caché guarda una copia inmutable de la fila; cada llamada devuelve un {@link User} nuevo, así que
+ * nadie puede modificar lo que ven los demás requests. Igual que en {@link ProductionOrderSummaryCache},
+ * las invalidaciones se repiten al terminar la transacción para descartar una carga concurrente con datos viejos.</p>
+ */
+public class CachingUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+    public static final String CACHE_NAME = "userDetails";
+
+    private final UserRepository userRepository;
+    private final Cache<String, CachedUser> users;
+    // id -> email de las entradas cacheadas, para invalidar por id sin recorrer la caché
+    private final Map<Long, String> emailsById = new ConcurrentHashMap<>();
+
+    public CachingUserDetailsService(UserRepository userRepository, MeterRegistry meterRegistry, Duration ttl, long maxSize) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .evictionListener((String email, CachedUser user, RemovalCause cause) -> {
+                    if (user != null) {
+                        emailsById.remove(user.id(), email);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, CACHE_NAME);
+    }
+
+    @Override
+    public User loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Los "no encontrado" no se cachean: el loader lanza y Caffeine no guarda nada
+        return users.get(username, this::load).toUser();
+    }
+
+    /** Persiste un hash re-calculado por DaoAuthenticationProvider al subir el costo de BCrypt. */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        // user es una copia propia de este login (ver loadUserByUsername), no la entrada cacheada
+        User appUser = (User) user;
+        userRepository.updatePassword(appUser.getEmail(), newPassword);
+        appUser.setPassword(newPassword);
+        evict(appUser.getEmail());
+        return appUser;
+    }
+
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        invalidate(email);
+        afterCompletion(() -> invalidate(email));
+    }
+
+    /** Para cambios donde sólo se conoce el id (p. ej. revocación de tokens). */
+    public void evictById(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidateById(userId);
+        afterCompletion(() -> invalidateById(userId));
+    }
+
+    private CachedUser load(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // Se indexa antes de publicar la entrada: un evictById concurrente siempre la encuentra
+        if (user.getId() != null) {
+            emailsById.put(user.getId(), email);
+        }
+        return CachedUser.from(user);
+    }
+
+    private void invalidate(String email) {
+        CachedUser removed = users.asMap().remove(email);
+        if (removed != null && removed.id() != null) {
+            emailsById.remove(removed.id(), email);
+        }
+    }
+
+    private void invalidateById(Long userId) {
+        String email = emailsById.remove(userId);
+        if (email != null) {
+            users.invalidate(email);
+        }
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    /** Copia inmutable de la fila de app_users que necesita la autenticación. */
+    private record CachedUser(
+            Long id,
+            String username,
+            String email,
+            String password,
+            boolean enabled,
+            LocalDateTime verificationCodeExpiresAt,
+            int tokenVersion
+    ) {
+        static CachedUser from(User user) {
+            return new CachedUser(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+                    user.isEnabled(), user.getVerificationCodeExpiresAt(), user.getTokenVersion());
+        }
+
+        User toUser() {
+            User user = new User(username, email, password);
+            user.setId(id);
+            user.setEnabled(enabled);
+            user.setVerificationCodeExpiresAt(verificationCodeExpiresAt);
+            user.setTokenVersion(tokenVersion);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV mínimo (RFC 4180) para importaciones/exportaciones en streaming: lee registro por registro sin cargar
+ * el archivo, con comillas dobles, comillas escapadas ("") y saltos de línea dentro de campos entre comillas.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    public static RecordReader reader(Reader reader) {
+        return new RecordReader(reader);
+    }
+
+    /** Escribe un registro terminado en \n; null se escribe como campo vacío. */
+    public static void writeRecord(Writer writer, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (fields[i] != null) {
+                writeField(writer, fields[i].toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    public static final class RecordReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private long line = 1;
+        private long recordLine;
+
+        private RecordReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /** Línea (1-based) donde empezó el último registro devuelto por {@link #next()}. */
+        public long recordLine() {
+            return recordLine;
+        }
+
+        /** Próximo registro, o null al final del archivo. Las líneas vacías se saltean. */
+        public List<String> next() throws IOException {
+            while (true) {
+                recordLine = line;
+                int c = read();
+                if (c == -1) {
+                    return null;
+                }
+                if (c == '\n') {
+                    line++;
+                    continue;
+                }
+                if (c == '\r') {
+                    continue;
+                }
+                return readRecord(c);
+            }
+        }
+
+        private List<String> readRecord(int first) throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldStart = true;
+            int c = first;
+            while (true) {
+                if (c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && fieldStart) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStart = true;
+                    c = read();
+                    continue;
+                } else if (c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                fieldStart = false;
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.demo.services;
+
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repositories.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drena email_outbox en segundo plano.
+ *
+ * <p>Cada lote se toma con FOR UPDATE SKIP LOCKED y se "alquila" (next_attempt_at = ahora + lease) en una
+ * transacción corta; después se envía fuera de la transacción con un único {@code send(MimeMessage...)},
+ * que abre una sola conexión SMTP (y un solo handshake STARTTLS) para todo el lote. Los fallos se reintentan
+ * con backoff exponencial hasta {@code max-attempts}; si lotes enteros fallan seguidos (SMTP caído) se abre
+ * un circuit breaker y no se intenta nada hasta que pase el tiempo de enfriamiento.</p>
+ */
+@Service
+public class EmailOutboxSender {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxSender.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final CircuitBreaker circuitBreaker;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public EmailOutboxSender(
+            EmailOutboxRepository emailOutboxRepository,
+            JavaMailSender mailSender,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${email.outbox.batch-size:50}") int batchSize,
+            @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${email.outbox.lease:5m}") Duration lease,
+            @Value("${email.outbox.initial-backoff:30s}") Duration initialBackoff,
+            @Value("${email.outbox.max-backoff:1h}") Duration maxBackoff,
+            @Value("${email.outbox.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${email.outbox.circuit-breaker.open-duration:1m}") Duration openDuration
+    ) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+
+        TimeGauge.builder("email.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::doubleValue)
+                .description("Antigüedad del mail pendiente más viejo")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.circuit.open", circuitBreaker, cb -> cb.isOpen(Instant.now()) ? 1 : 0)
+                .register(meterRegistry);
+        this.sent = Counter.builder("email.outbox.sent").register(meterRegistry);
+        this.retried = Counter.builder("email.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("email.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:2s}")
+    public void drain() {
+        try {
+            while (circuitBreaker.allowRequest(Instant.now())) {
+                Instant now = Instant.now();
+                List<EmailOutbox> batch = transactionTemplate.execute(status -> claim(now));
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                Map<Long, String> failures = send(batch);
+                transactionTemplate.executeWithoutResult(status -> complete(batch, failures, now));
+                if (failures.size() == batch.size()) {
+                    circuitBreaker.recordFailure(Instant.now());
+                    break;
+                }
+                circuitBreaker.recordSuccess();
+            }
+        } catch (RuntimeException e) {
+            log.error("Email outbox drain failed", e);
+        } finally {
+            updateLag();
+        }
+    }
+
+    private List<EmailOutbox> claim(Instant now) {
+        List<EmailOutbox> batch = emailOutboxRepository.lockDueBatch(now, PageRequest.of(0, batchSize));
+        Instant leasedUntil = now.plus(lease);
+        batch.forEach(email -> email.setNextAttemptAt(leasedUntil));
+        return batch;
+    }
+
+    /** Envía el lote por una sola conexión; devuelve el error de cada mail que no salió, por id. */
+    private Map<Long, String> send(List<EmailOutbox> batch) {
+        Map<Long, String> failures = new HashMap<>();
+        Map<MimeMessage, Long> ids = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (EmailOutbox email : batch) {
+            try {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, true);
+                helper.setTo(email.getRecipient());
+                helper.setSubject(email.getSubject());
+                helper.setText(email.getBody(), true);
+                ids.put(message, email.getId());
+                messages.add(message);
+            } catch (MessagingException e) {
+                failures.put(email.getId(), e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, ex) -> {
+                Long id = ids.get(message);
+                if (id != null) {
+                    failures.put(id, ex.getMessage());
+                }
+            });
+            if (e.getFailedMessages().isEmpty()) {
+                ids.values().forEach(id -> failures.put(id, e.getMessage()));
+            }
+        } catch (MailException e) {
+            ids.values().forEach(id -> failures.put(id, e.getMessage()));
+        }
+        return failures;
+    }
+
+    private void complete(List<EmailOutbox> batch, Map<Long, String> failures, Instant now) {
+        List<Long> delivered = new ArrayList<>();
+        List<EmailOutbox> pending = new ArrayList<>();
+        for (EmailOutbox email : batch) {
+            String error = failures.get(email.getId());
+            if (error == null) {
+                delivered.add(email.getId());
+                continue;
+            }
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (email.getAttempts() >= maxAttempts) {
+                email.setStatus(EmailOutbox.Status.FAILED);
+                failed.increment();
+                log.warn("Giving up on email {} to {} after {} attempts: {}", email.getId(), email.getRecipient(), email.getAttempts(), error);
+            } else {
+                email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                retried.increment();
+            }
+            pending.add(email);
+        }
+        emailOutboxRepository.deleteAllByIdInBatch(delivered);
+        emailOutboxRepository.saveAll(pending);
+        sent.increment(delivered.size());
+    }
+
+    // Exponencial con jitter de ±20% para no reintentar todos juntos cuando vuelve el SMTP
+    private Duration backoff(int attempts) {
+        long base = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        return Duration.ofMillis((long) (capped * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+    }
+
+    private void updateLag() {
+        try {
+            lagMillis.set(emailOutboxRepository.findOldestPendingCreatedAt()
+                    .map(oldest -> Math.max(0, Duration.between(oldest, Instant.now()).toMillis()))
+                    .orElse(0L));
+        } catch (RuntimeException e) {
+            log.warn("Could not compute email outbox lag: {}", e.getMessage());
+        }
+    }
+
+    /** Abre tras N lotes fallidos seguidos; pasado el enfriamiento deja probar un lote (half-open). */
+    static final class CircuitBreaker {
+        private final int failureThreshold;
+        private final Duration openDuration;
+        private int consecutiveFailures;
+        private Instant openUntil = Instant.MIN;
+
+        CircuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openDuration = openDuration;
+        }
+
+        synchronized boolean allowRequest(Instant now) {
+            return !isOpen(now);
+        }
+
+        synchronized boolean isOpen(Instant now) {
+            return now.isBefore(openUntil);
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+            openUntil = Instant.MIN;
+        }
+
+        synchronized void recordFailure(Instant now) {
+            if (++consecutiveFailures >= failureThreshold) {
+                openUntil = now.plus(openDuration);
+            }
+        }
+    }
+}
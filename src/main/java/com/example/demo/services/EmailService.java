@@ -1,26 +1,32 @@
 package com.example.demo.services;
 
 
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repositories.EmailOutboxRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+
+/**
+ * Encola los mails en email_outbox dentro de la transacción del llamador;
+ * el envío real lo hace {@link EmailOutboxSender} en segundo plano.
+ */
 @Service
 public class EmailService {
+    private final EmailOutboxRepository emailOutboxRepository;
 
-    @Autowired
-    private JavaMailSender emailSender;
-
-    public void sendVerificationEmail(String to, String subject, String text) throws Exception{
-        MimeMessage message = emailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(text, true);
+    public EmailService(EmailOutboxRepository emailOutboxRepository) {
+        this.emailOutboxRepository = emailOutboxRepository;
+    }
 
-        emailSender.send(message);
+    @Transactional
+    public void sendVerificationEmail(String to, String subject, String text) {
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(text)
+                .nextAttemptAt(Instant.now())
+                .build());
     }
 }
@@ -0,0 +1,107 @@
+package com.example.demo.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Códigos en memoria con expiración por hashed timing wheel.
+ *
+ * <p>Cada código se agenda en la ranura de su tick de vencimiento; en cada tick sólo se recorre esa ranura,
+ * así que reclamar los vencidos no escanea el mapa entero. Los que caen en la misma ranura pero en una vuelta
+ * posterior de la rueda se dejan para la siguiente pasada. Un código reemplazado por un reenvío deja su
+ * entrada vieja en la rueda, que al vencer no borra nada porque el valor del mapa ya no coincide.</p>
+ *
+ * <p>Sólo sirve con un único nodo: los códigos se pierden al reiniciar. Se activa con
+ * {@code security.verification.store=memory}; por defecto se usa {@link JpaVerificationCodeStore}.</p>
+ */
+@Service
+@ConditionalOnProperty(name = "security.verification.store", havingValue = "memory")
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+    private final Map<String, StoredCode> codes = new ConcurrentHashMap<>();
+    private final Queue<Timeout>[] wheel;
+    private final int mask;
+    private final long tickMillis;
+
+    // Sólo lo modifica advance(), que corre en el hilo del scheduler
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryVerificationCodeStore(
+            @Value("${security.verification.memory.tick:1s}") Duration tick,
+            @Value("${security.verification.memory.wheel-size:1024}") int wheelSize
+    ) {
+        int size = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+        this.wheel = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = size - 1;
+        this.tickMillis = tick.toMillis();
+        this.lastTick = currentTick(Instant.now());
+    }
+
+    @Override
+    public void put(String email, String code, Instant expiresAt) {
+        StoredCode stored = new StoredCode(code, expiresAt);
+        codes.put(email, stored);
+        long deadline = Math.floorDiv(expiresAt.toEpochMilli() + tickMillis - 1, tickMillis);
+        wheel[(int) (deadline & mask)].add(new Timeout(email, stored, deadline));
+    }
+
+    @Override
+    public Optional<StoredCode> find(String email) {
+        return Optional.ofNullable(codes.get(email));
+    }
+
+    @Override
+    public void remove(String email) {
+        codes.remove(email);
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    /** Avanza la rueda hasta el tick actual, reclamando los códigos vencidos de cada ranura recorrida. */
+    @Scheduled(fixedDelayString = "${security.verification.memory.tick:1s}")
+    public void advance() {
+        advance(Instant.now());
+    }
+
+    void advance(Instant now) {
+        long current = currentTick(now);
+        long ticks = Math.min(current - lastTick, wheel.length);
+        for (long i = 1; i <= ticks; i++) {
+            expire(wheel[(int) ((lastTick + i) & mask)], current);
+        }
+        lastTick = Math.max(lastTick, current);
+    }
+
+    private void expire(Queue<Timeout> slot, long current) {
+        for (Iterator<Timeout> it = slot.iterator(); it.hasNext(); ) {
+            Timeout timeout = it.next();
+            if (timeout.deadline() <= current) {
+                codes.remove(timeout.email(), timeout.code());
+                it.remove();
+            }
+        }
+    }
+
+    private long currentTick(Instant now) {
+        return Math.floorDiv(now.toEpochMilli(), tickMillis);
+    }
+
+    private record Timeout(String email, StoredCode code, long deadline) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.services;
+
+import com.example.demo.model.VerificationCode;
+import com.example.demo.repositories.VerificationCodeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/** Códigos en la tabla verification_codes: sobreviven reinicios y sirven con más de un nodo atendiendo /auth. Es el store por defecto. */
+@Service
+@ConditionalOnProperty(name = "security.verification.store", havingValue = "database", matchIfMissing = true)
+public class JpaVerificationCodeStore implements VerificationCodeStore {
+    private final VerificationCodeRepository verificationCodeRepository;
+
+    public JpaVerificationCodeStore(VerificationCodeRepository verificationCodeRepository) {
+        this.verificationCodeRepository = verificationCodeRepository;
+    }
+
+    @Override
+    @Transactional
+    public void put(String email, String code, Instant expiresAt) {
+        verificationCodeRepository.save(new VerificationCode(email, code, expiresAt));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StoredCode> find(String email) {
+        return verificationCodeRepository.findById(email)
+                .map(stored -> new StoredCode(stored.getCode(), stored.getExpiresAt()));
+    }
+
+    @Override
+    @Transactional
+    public void remove(String email) {
+        verificationCodeRepository.deleteById(email);
+    }
+
+    @Scheduled(fixedDelayString = "${security.verification.database.purge-interval:5m}")
+    @Transactional
+    public void purgeExpired() {
+        verificationCodeRepository.deleteExpired(Instant.now());
+    }
+}
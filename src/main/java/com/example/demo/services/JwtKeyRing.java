@@ -0,0 +1,228 @@
+package com.example.demo.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Conjunto de claves JWT indexadas por "kid", decodificadas una sola vez.
+ *
+ * <p>La clave {@code security.jwt.secret-key} siempre está disponible con kid {@value #DEFAULT_KID}
+ * (y verifica los tokens emitidos sin kid). Opcionalmente, {@code security.jwt.key-file} apunta a un
+ * archivo .properties con más claves y la activa para firmar:</p>
+ * <pre>
+ * active=2026-10
+ * keys.2026-10.algorithm=RS256
+ * keys.2026-10.private-key=&lt;PKCS#8 en PEM o Base64&gt;
+ * keys.2026-10.public-key=&lt;X.509 en PEM o Base64&gt;
+ * keys.2026-04.algorithm=HS256
+ * keys.2026-04.secret=&lt;Base64&gt;
+ * </pre>
+ * <p>El archivo se relee sin reiniciar cuando cambia. Una clave que desaparece del archivo sigue
+ * verificando hasta que expiran los tokens que pudo haber firmado.</p>
+ */
+@Service
+public class JwtKeyRing implements SigningKeyResolver {
+    public static final String DEFAULT_KID = "default";
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final JwtKey defaultKey;
+    private final Path keyFile;
+    private final Duration retention;
+
+    private volatile Snapshot snapshot;
+    private volatile long keyFileModified = -1;
+
+    public JwtKeyRing(
+            @Value("${security.jwt.secret-key}") String secretKey,
+            @Value("${security.jwt.key-file:}") String keyFile,
+            @Value("${security.jwt.expiration-time}") long jwtExpiration
+    ) {
+        this.defaultKey = JwtKey.hmac(DEFAULT_KID, SignatureAlgorithm.HS256, Decoders.BASE64.decode(secretKey));
+        this.keyFile = keyFile == null || keyFile.isBlank() ? null : Path.of(keyFile);
+        this.retention = Duration.ofMillis(jwtExpiration);
+        this.snapshot = new Snapshot(defaultKey, Map.of(DEFAULT_KID, defaultKey), Map.of());
+        if (this.keyFile != null) {
+            load(true);
+        }
+    }
+
+    public JwtKey activeKey() {
+        return snapshot.active();
+    }
+
+    /** Claves públicas (activa y en retiro) que otros servicios pueden usar para verificar localmente. */
+    public List<JwtKey> publicKeys() {
+        Snapshot current = snapshot;
+        return Stream.concat(
+                        current.keys().values().stream(),
+                        current.retired().values().stream().map(RetiredKey::key))
+                .filter(key -> key.publicKey() != null)
+                .toList();
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        return resolve(header);
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, String plaintext) {
+        return resolve(header);
+    }
+
+    private Key resolve(JwsHeader<?> header) {
+        String kid = header.getKeyId() != null ? header.getKeyId() : DEFAULT_KID;
+        Snapshot current = snapshot;
+        JwtKey key = current.keys().get(kid);
+        if (key == null) {
+            RetiredKey retired = current.retired().get(kid);
+            if (retired != null && retired.until().isAfter(Instant.now())) {
+                key = retired.key();
+            }
+        }
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+        }
+        if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+            throw new UnsupportedJwtException("JWT algorithm does not match key " + kid);
+        }
+        return key.verificationKey();
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.key-file-reload-interval:30s}")
+    public void reloadIfChanged() {
+        if (keyFile == null) {
+            return;
+        }
+        try {
+            if (Files.exists(keyFile) && Files.getLastModifiedTime(keyFile).toMillis() != keyFileModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("Could not check JWT key file {}: {}", keyFile, e.getMessage());
+        }
+    }
+
+    /** Relee el archivo de claves; si falla, se conserva el conjunto anterior. */
+    public void reload() {
+        if (keyFile != null) {
+            load(false);
+        }
+    }
+
+    private synchronized void load(boolean initial) {
+        try {
+            long modified = Files.getLastModifiedTime(keyFile).toMillis();
+            Properties props = new Properties();
+            try (Reader reader = Files.newBufferedReader(keyFile)) {
+                props.load(reader);
+            }
+            Map<String, JwtKey> keys = new HashMap<>();
+            keys.put(DEFAULT_KID, defaultKey);
+            for (String name : props.stringPropertyNames()) {
+                if (name.startsWith("keys.") && name.endsWith(".algorithm")) {
+                    String kid = name.substring("keys.".length(), name.length() - ".algorithm".length());
+                    keys.put(kid, parseKey(kid, props));
+                }
+            }
+            String activeKid = props.getProperty("active", DEFAULT_KID).trim();
+            JwtKey active = keys.get(activeKid);
+            if (active == null || active.signingKey() == null) {
+                throw new IllegalStateException("Active JWT key '" + activeKid + "' is missing or cannot sign");
+            }
+            snapshot = new Snapshot(active, Map.copyOf(keys), retire(snapshot, keys));
+            keyFileModified = modified;
+            log.info("Loaded {} JWT keys from {}, active kid={}", keys.size(), keyFile, activeKid);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            if (initial) {
+                throw new IllegalStateException("Could not load JWT key file " + keyFile, e);
+            }
+            log.error("Could not reload JWT key file {}, keeping previous keys", keyFile, e);
+        }
+    }
+
+    private Map<String, RetiredKey> retire(Snapshot previous, Map<String, JwtKey> current) {
+        Instant now = Instant.now();
+        Map<String, RetiredKey> retired = new HashMap<>();
+        previous.retired().forEach((kid, key) -> {
+            if (!current.containsKey(kid) && key.until().isAfter(now)) {
+                retired.put(kid, key);
+            }
+        });
+        previous.keys().forEach((kid, key) -> {
+            if (!current.containsKey(kid)) {
+                retired.put(kid, new RetiredKey(key, now.plus(retention)));
+            }
+        });
+        return Map.copyOf(retired);
+    }
+
+    private static JwtKey parseKey(String kid, Properties props) throws GeneralSecurityException {
+        String prefix = "keys." + kid + ".";
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(props.getProperty(prefix + "algorithm").trim());
+        if (algorithm.isHmac()) {
+            return JwtKey.hmac(kid, algorithm, Decoders.BASE64.decode(props.getProperty(prefix + "secret").trim()));
+        }
+        String keyType = algorithm.isRsa() ? "RSA" : "EC";
+        KeyFactory factory = KeyFactory.getInstance(keyType);
+        String privatePem = props.getProperty(prefix + "private-key");
+        PrivateKey privateKey = privatePem != null
+                ? factory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privatePem)))
+                : null;
+        PublicKey publicKey = factory.generatePublic(new X509EncodedKeySpec(decodePem(props.getProperty(prefix + "public-key"))));
+        return new JwtKey(kid, algorithm, privateKey, publicKey, publicKey);
+    }
+
+    private static byte[] decodePem(String pem) {
+        String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    /**
+     * Clave lista para usar. Para HMAC la misma clave firma y verifica;
+     * para RS/ES {@code signingKey} es la privada (puede faltar si sólo se verifica) y {@code publicKey} la pública.
+     */
+    public record JwtKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey, PublicKey publicKey) {
+        static JwtKey hmac(String kid, SignatureAlgorithm algorithm, byte[] secret) {
+            Key key = Keys.hmacShaKeyFor(secret);
+            return new JwtKey(kid, algorithm, key, key, null);
+        }
+    }
+
+    private record RetiredKey(JwtKey key, Instant until) {
+    }
+
+    private record Snapshot(JwtKey active, Map<String, JwtKey> keys, Map<String, RetiredKey> retired) {
+    }
+}
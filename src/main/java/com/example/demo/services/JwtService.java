@@ -1,34 +1,97 @@
 package com.example.demo.services;
 
-import io.jsonwebtoken.Claims;
+import com.example.demo.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import java.security.Key;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+    // Claims con los que se reconstruye el principal sin consultar la base
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_ENABLED = "enabled";
+    public static final String CLAIM_AUTHORITIES = "auth";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
 
     @Value("${security.jwt.expiration-time}")
     private long jwtExpiration;
 
+    @Value("${security.jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // Las claves se decodifican una sola vez en el key ring; el parser resuelve la clave por "kid".
+    private final JwtKeyRing keyRing;
+    private JwtParser jwtParser;
+
+    // Tokens ya verificados, indexados por SHA-256 del token y expirados junto con el propio JWT.
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @PostConstruct
+    void init() {
+        jwtParser = Jwts.parserBuilder().setSigningKeyResolver(keyRing).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
+
+    /**
+     * Verifica firma y expiración del token una sola vez y devuelve sus claims.
+     * Las llamadas siguientes con el mismo token se resuelven desde la caché hasta que el token expire.
+     * La misma instancia se comparte entre requests, por eso se cachea una copia inmutable y no los Claims de jjwt.
+     */
+    public VerifiedToken verifyToken(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        VerifiedToken verified = VerifiedToken.from(jwtParser.parseClaimsJws(token).getBody());
+        verifiedTokens.put(digest, verified);
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return extractClaim(token, VerifiedToken::subject);
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+    public <T> T extractClaim(String token, Function<VerifiedToken, T> claimsResolver) {
+        final VerifiedToken claims = verifyToken(token);
         return claimsResolver.apply(claims);
     }
 
@@ -49,40 +112,98 @@ public class JwtService {
             UserDetails userDetails,
             long expiration
     ) {
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        if (userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_EMAIL, user.getEmail());
+            claims.put(CLAIM_ENABLED, user.isEnabled());
+            claims.put(CLAIM_AUTHORITIES, user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+            claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
+        JwtKeyRing.JwtKey signingKey = keyRing.activeKey();
         return Jwts
                 .builder()
-                .setClaims(extraClaims)
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setClaims(claims)
                 .setSubject(userDetails.getUsername())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey.signingKey(), signingKey.algorithm())
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verifyToken(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(VerifiedToken claims, UserDetails userDetails) {
+        return claims.subject().equals(userDetails.getUsername())
+                && !isTokenExpired(claims)
+                && hasCurrentVersion(claims, userDetails);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Reconstruye el principal a partir de claims ya verificados.
+     * Devuelve null si el token fue emitido sin los claims necesarios (tokens anteriores al modo stateless).
+     */
+    public User extractPrincipal(VerifiedToken claims) {
+        Long userId = claims.userId();
+        Integer tokenVersion = claims.tokenVersion();
+        if (userId == null || tokenVersion == null) {
+            return null;
+        }
+        User user = new User(claims.subject(), claims.email(), null);
+        user.setId(userId);
+        user.setEnabled(Boolean.TRUE.equals(claims.enabled()));
+        user.setTokenVersion(tokenVersion);
+        return user;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public List<GrantedAuthority> extractAuthorities(VerifiedToken claims) {
+        List<String> authorities = claims.authorities();
+        if (authorities == null) {
+            return List.of();
+        }
+        return authorities.stream().<GrantedAuthority>map(SimpleGrantedAuthority::new).toList();
+    }
+
+    private boolean hasCurrentVersion(VerifiedToken claims, UserDetails userDetails) {
+        Integer tokenVersion = claims.tokenVersion();
+        if (tokenVersion == null || !(userDetails instanceof User user)) {
+            return true;
+        }
+        return tokenVersion == user.getTokenVersion();
+    }
+
+    private boolean isTokenExpired(VerifiedToken claims) {
+        return claims.expiration().isBefore(Instant.now());
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    /** Cada entrada vive exactamente hasta el "exp" del token que la originó. */
+    private final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken claims, long currentTime) {
+            Instant expiration = claims.expiration();
+            long remainingMillis = expiration != null
+                    ? expiration.toEpochMilli() - System.currentTimeMillis()
+                    : jwtExpiration;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.example.demo.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter en proceso para /auth/login, /auth/verify y /auth/resend.
+ * Un bucket por email y otro por IP; ambos deben tener cupo para dejar pasar el intento.
+ * Los buckets viven en una caché acotada y se descartan tras un período sin uso.
+ */
+@Service
+public class LoginRateLimiter {
+    private final Cache<String, Bucket> buckets;
+    private final long emailInterval;
+    private final long emailTolerance;
+    private final long ipInterval;
+    private final long ipTolerance;
+    private final Counter rejected;
+
+    public LoginRateLimiter(
+            @Value("${security.rate-limit.email.capacity:5}") int emailCapacity,
+            @Value("${security.rate-limit.email.period:1m}") Duration emailPeriod,
+            @Value("${security.rate-limit.ip.capacity:30}") int ipCapacity,
+            @Value("${security.rate-limit.ip.period:1m}") Duration ipPeriod,
+            @Value("${security.rate-limit.max-buckets:100000}") long maxBuckets,
+            MeterRegistry meterRegistry
+    ) {
+        this.emailInterval = emailPeriod.toNanos() / emailCapacity;
+        this.emailTolerance = emailInterval * (emailCapacity - 1);
+        this.ipInterval = ipPeriod.toNanos() / ipCapacity;
+        this.ipTolerance = ipInterval * (ipCapacity - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(emailPeriod.compareTo(ipPeriod) > 0 ? emailPeriod : ipPeriod)
+                .build();
+        this.rejected = Counter.builder("auth.rate-limit.rejected").register(meterRegistry);
+    }
+
+    /** Lanza 429 si el email o la IP agotaron su cupo. */
+    public void acquire(String clientIp, String email) {
+        long now = System.nanoTime();
+        boolean allowed = (clientIp == null || bucket("ip:" + clientIp).tryAcquire(now, ipInterval, ipTolerance))
+                && (email == null || bucket("email:" + email.trim().toLowerCase(Locale.ROOT))
+                        .tryAcquire(now, emailInterval, emailTolerance));
+        if (!allowed) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many attempts, please retry later");
+        }
+    }
+
+    private Bucket bucket(String key) {
+        return buckets.get(key, k -> new Bucket());
+    }
+
+    /**
+     * Token bucket en su forma GCRA: todo el estado es un único long (el "theoretical arrival time"),
+     * así que se actualiza con un CAS sin locks.
+     */
+    static final class Bucket {
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        boolean tryAcquire(long now, long interval, long tolerance) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long base = Math.max(tat, now);
+                if (base - tolerance > now) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(tat, base + interval)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
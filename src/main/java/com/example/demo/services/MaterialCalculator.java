@@ -0,0 +1,119 @@
+package com.example.demo.services;
+
+/**
+ * Cálculo de materiales en punto fijo: perfil en mm, vidrio en mm² y herrajes en unidades, todo en long.
+ *
+ * <p>Las cuentas son exactas (sin double ni BigDecimal), así que en mm / mm² la suma de los ítems da siempre
+ * el total de la orden. El redondeo a metros / m² con 3 decimales se hace al mostrar cada valor
+ * ({@link #toMeters(long)}, {@link #toSquareMeters(long)}); los m² redondeados por ítem pueden no sumar
+ * el total redondeado (tres ítems de 500 mm² muestran 0.001 cada uno y 0.002 en total), por eso el summary
+ * expone también los valores en mm / mm².</p>
+ *
+ * <p>Para recorridos grandes (planificación, exportación) {@link Totals} acumula sobre arrays primitivos
+ * sin crear objetos por ítem, y se puede combinar entre hilos con {@link Totals#merge(Totals)}.</p>
+ */
+public final class MaterialCalculator {
+
+    private MaterialCalculator() {
+    }
+
+    /** Perímetro del marco por la cantidad: 2 * (ancho + alto) * cantidad. */
+    public static long profileMm(int widthMm, int heightMm, int quantity) {
+        return 2L * ((long) widthMm + heightMm) * quantity;
+    }
+
+    public static long glassMm2(int widthMm, int heightMm, int quantity) {
+        return (long) widthMm * heightMm * quantity;
+    }
+
+    /** mm -> m: con 3 decimales la conversión es exacta. */
+    public static double toMeters(long mm) {
+        return mm / 1000.0;
+    }
+
+    /** mm² -> m² redondeado a 3 decimales, half-up. */
+    public static double toSquareMeters(long mm2) {
+        return Math.floorDiv(mm2 + 500, 1000) / 1000.0;
+    }
+
+    /**
+     * Calcula cada ítem en {@code profileOut}/{@code glassOut} (índice a índice) y devuelve la cantidad
+     * total de herrajes. Los arrays de salida pueden reutilizarse entre llamadas.
+     */
+    public static long compute(int[] widthsMm, int[] heightsMm, int[] quantities, int count,
+                               long[] profileOut, long[] glassOut) {
+        long hardware = 0;
+        for (int i = 0; i < count; i++) {
+            int quantity = quantities[i];
+            profileOut[i] = profileMm(widthsMm[i], heightsMm[i], quantity);
+            glassOut[i] = glassMm2(widthsMm[i], heightsMm[i], quantity);
+            hardware += quantity;
+        }
+        return hardware;
+    }
+
+    /** Acumulador mutable de totales; no es thread-safe, cada hilo usa el suyo y después se combinan. */
+    public static final class Totals {
+        private long profileMm;
+        private long glassMm2;
+        private long hardwareUnits;
+        private long itemCount;
+
+        public Totals add(int widthMm, int heightMm, int quantity) {
+            itemCount++;
+            profileMm += MaterialCalculator.profileMm(widthMm, heightMm, quantity);
+            glassMm2 += MaterialCalculator.glassMm2(widthMm, heightMm, quantity);
+            hardwareUnits += quantity;
+            return this;
+        }
+
+        public Totals addAll(int[] widthsMm, int[] heightsMm, int[] quantities, int from, int to) {
+            long profile = 0;
+            long glass = 0;
+            long hardware = 0;
+            for (int i = from; i < to; i++) {
+                int quantity = quantities[i];
+                profile += 2L * ((long) widthsMm[i] + heightsMm[i]) * quantity;
+                glass += (long) widthsMm[i] * heightsMm[i] * quantity;
+                hardware += quantity;
+            }
+            profileMm += profile;
+            glassMm2 += glass;
+            hardwareUnits += hardware;
+            itemCount += to - from;
+            return this;
+        }
+
+        public Totals merge(Totals other) {
+            profileMm += other.profileMm;
+            glassMm2 += other.glassMm2;
+            hardwareUnits += other.hardwareUnits;
+            itemCount += other.itemCount;
+            return this;
+        }
+
+        public long profileMm() {
+            return profileMm;
+        }
+
+        public long glassMm2() {
+            return glassMm2;
+        }
+
+        public long hardwareUnits() {
+            return hardwareUnits;
+        }
+
+        public long itemCount() {
+            return itemCount;
+        }
+
+        public double profileMeters() {
+            return toMeters(profileMm);
+        }
+
+        public double glassSquareMeters() {
+            return toSquareMeters(glassMm2);
+        }
+    }
+}
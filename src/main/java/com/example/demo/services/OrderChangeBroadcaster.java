@@ -0,0 +1,356 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderChangeDto;
+import com.example.demo.model.ProductionOrderEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte los cambios de órdenes (los mismos {@link ProductionOrderEvent} del historial) a los clientes de
+ * GET /auth/orders/stream.
+ *
+ * <p>Las conexiones son {@link SseEmitter} (servlet async): mientras esperan no ocupan hilos de Tomcat. Al hacer
+ * commit, cada cambio se agrega al buffer de los suscriptores cuyo filtro coincide, sin escribir nada en el
+ * hilo del request. Un pool chico de escritores vacía cada buffer; como mucho hay una tarea por suscriptor.
+ * Los buffers son acotados: si un cliente lento se atrasa se descarta el cambio más viejo
+ * ("orders.stream.dropped"). Si descarta dos buffers enteros sin que su escritor avance, el cliente no está leyendo:
+ * se lo desconecta ("orders.stream.stalled"). El envío en sí es bloqueante y no se puede cortar desde afuera:
+ * si uno tarda más que orders.stream.write-timeout, el cliente se desconecta y el pool suma un hilo mientras ese
+ * envío siga trabado, así unos pocos clientes que no leen no frenan el stream de los demás.</p>
+ */
+@Service
+public class OrderChangeBroadcaster {
+    // Marca en el buffer para mandar un comentario SSE de keep-alive por el mismo camino que los datos
+    private static final OrderChangeDto HEARTBEAT = new OrderChangeDto();
+    // Buffers enteros descartados sin que el escritor avance antes de dar al cliente por trabado
+    private static final int STALLED_BUFFERS = 2;
+    // Tope de hilos que se suman al pool por envíos trabados; el conector termina cortando esos envíos
+    private static final int MAX_EXTRA_WRITERS = 64;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Executor writers;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final long writeTimeoutNanos;
+    // Hilos sumados al pool por envíos trabados; protegido por el lock del pool
+    private int extraWriters;
+    private final Counter dropped;
+    private final Counter stalled;
+
+    @Autowired
+    public OrderChangeBroadcaster(
+            MeterRegistry meterRegistry,
+            @Value("${orders.stream.writer-threads:4}") int writerThreads,
+            @Value("${orders.stream.buffer-size:256}") int bufferSize,
+            @Value("${orders.stream.max-subscribers:5000}") int maxSubscribers,
+            @Value("${orders.stream.timeout:30m}") Duration timeout,
+            @Value("${orders.stream.write-timeout:10s}") Duration writeTimeout
+    ) {
+        this(meterRegistry, newWriterPool(writerThreads), bufferSize, maxSubscribers, timeout, writeTimeout);
+    }
+
+    OrderChangeBroadcaster(MeterRegistry meterRegistry, Executor writers, int bufferSize, int maxSubscribers,
+                           Duration timeout, Duration writeTimeout) {
+        this.writers = writers;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        Gauge.builder("orders.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        this.dropped = Counter.builder("orders.stream.dropped").register(meterRegistry);
+        this.stalled = Counter.builder("orders.stream.stalled").register(meterRegistry);
+    }
+
+    /** Nueva suscripción; {@code teamId} y {@code statusId} filtran (null = todos). */
+    public SseEmitter subscribe(Long teamId, Short statusId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many order stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        register(emitter, teamId, statusId);
+        return emitter;
+    }
+
+    Subscriber register(SseEmitter emitter, Long teamId, Short statusId) {
+        Subscriber subscriber = new Subscriber(emitter, teamId, statusId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(ProductionOrderEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        OrderChangeDto change = OrderChangeDto.builder()
+                .type(event.getType())
+                .orderId(event.getOrderId())
+                .teamId(event.getTeamId())
+                .statusId(event.getStatusId())
+                .fromStatus(event.getFromStatus())
+                .toStatus(event.getToStatus())
+                .actor(event.getActor())
+                .occurredAt(event.getOccurredAt())
+                .details(event.getDetails())
+                .build();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.matches(change)) {
+                subscriber.enqueue(change);
+            }
+        }
+    }
+
+    // Detecta conexiones muertas (el envío falla) y evita que proxies corten el stream por inactividad
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat:30s}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    // Desconecta a los clientes con un envío trabado y le devuelve al pool el hilo que retienen
+    @Scheduled(fixedDelayString = "${orders.stream.stall-check:1s}")
+    public void disconnectStalledWriters() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isSendingSince(now - writeTimeoutNanos)) {
+                stalled.increment();
+                subscriber.abandonWriter();
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(Subscriber::disconnect);
+        subscribers.clear();
+        if (writers instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    // Suma un hilo al pool mientras un envío trabado retiene otro; false si no hay pool o se llegó al tope
+    private boolean addWriter() {
+        if (!(writers instanceof ThreadPoolExecutor pool)) {
+            return false;
+        }
+        synchronized (pool) {
+            if (extraWriters >= MAX_EXTRA_WRITERS) {
+                return false;
+            }
+            extraWriters++;
+            // el máximo primero: nunca puede quedar por debajo del core
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+            pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+        }
+        return true;
+    }
+
+    private void releaseWriter() {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) writers;
+        synchronized (pool) {
+            extraWriters--;
+            pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+        }
+    }
+
+    private static ExecutorService newWriterPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "order-stream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    final class Subscriber implements Runnable {
+        private final SseEmitter emitter;
+        private final Long teamId;
+        private final Short statusId;
+        private final ArrayDeque<OrderChangeDto> buffer = new ArrayDeque<>();
+        // true mientras hay una tarea de escritura pendiente o corriendo; protegido por this
+        private boolean draining;
+        // Cambios descartados desde que el escritor tomó el último del buffer; protegido por this
+        private int overflows;
+        // Cliente desconectado por no leer: el escritor completa el emitter al terminar su envío; protegido por this
+        private boolean closed;
+        // El pool sumó un hilo por el envío trabado de este suscriptor; protegido por this
+        private boolean compensated;
+        // Inicio (System.nanoTime) del envío en curso; sending se escribe después, así quien lo ve en true lee un inicio vigente
+        private volatile long sendStartedAt;
+        private volatile boolean sending;
+
+        Subscriber(SseEmitter emitter, Long teamId, Short statusId) {
+            this.emitter = emitter;
+            this.teamId = teamId;
+            this.statusId = statusId;
+        }
+
+        boolean matches(OrderChangeDto change) {
+            return (teamId == null || teamId.equals(change.getTeamId()))
+                    && (statusId == null || statusId.equals(change.getStatusId())
+                    || statusId.equals(change.getFromStatus()));
+        }
+
+        void enqueue(OrderChangeDto change) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    dropped.increment();
+                    if (++overflows >= STALLED_BUFFERS * bufferSize) {
+                        // Con el buffer lleno siempre hay una tarea de escritura: ella cierra el emitter
+                        dropped.increment(buffer.size() + 1);
+                        stalled.increment();
+                        closeLocked();
+                        return;
+                    }
+                }
+                buffer.addLast(change);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                // Un envío pendiente ya mantiene viva la conexión; así el heartbeat nunca desplaza un cambio
+                if (closed || draining) {
+                    return;
+                }
+                buffer.addLast(HEARTBEAT);
+                draining = true;
+            }
+            schedule();
+        }
+
+        boolean isSendingSince(long startedBefore) {
+            return sending && sendStartedAt - startedBefore <= 0;
+        }
+
+        void abandonWriter() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closeLocked();
+                compensated = addWriter();
+            }
+        }
+
+        /** Deja de aceptar cambios; si hay un envío en curso, el emitter lo completa su escritor al terminar. */
+        void disconnect() {
+            boolean idle;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                idle = closeLocked();
+            }
+            // Sin escritor no hay envío que retenga el lock del emitter
+            if (idle) {
+                emitter.complete();
+            }
+        }
+
+        // Con el lock tomado; devuelve true si no hay tarea de escritura pendiente ni corriendo
+        private boolean closeLocked() {
+            closed = true;
+            buffer.clear();
+            subscribers.remove(this);
+            boolean idle = !draining;
+            draining = true;
+            return idle;
+        }
+
+        private void schedule() {
+            try {
+                writers.execute(this);
+            } catch (RejectedExecutionException e) {
+                // apagando: el emitter se cierra en shutdown()
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } finally {
+                synchronized (this) {
+                    if (compensated) {
+                        compensated = false;
+                        releaseWriter();
+                    }
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                OrderChangeDto next;
+                synchronized (this) {
+                    if (closed) {
+                        break;
+                    }
+                    next = buffer.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                    overflows = 0;
+                }
+                sendStartedAt = System.nanoTime();
+                sending = true;
+                try {
+                    emitter.send(next == HEARTBEAT
+                            ? SseEmitter.event().comment("heartbeat")
+                            : SseEmitter.event().name(Objects.toString(next.getType())).data(next, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado: draining queda en true para no volver a programar este suscriptor
+                    subscribers.remove(this);
+                    return;
+                } finally {
+                    sending = false;
+                }
+            }
+            // Se completa desde el escritor: otro hilo quedaría esperando el lock del envío trabado
+            emitter.complete();
+        }
+    }
+}
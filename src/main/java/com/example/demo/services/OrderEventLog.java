@@ -0,0 +1,166 @@
+package com.example.demo.services;
+
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderEvent;
+import com.example.demo.repositories.ProductionOrderEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Historial append-only de las órdenes (production_order_events).
+ *
+ * <p>Los servicios publican un {@link ProductionOrderEvent} con {@code ApplicationEventPublisher}; al hacer commit
+ * se encola en un {@link OrderEventRing} sin locks y el request sigue sin tocar la base. Un hilo de fondo drena
+ * la cola y la escribe con INSERTs en batch por JDBC. Si la cola se llena, el evento se escribe en el momento,
+ * en una transacción propia: después del commit la conexión del request sigue ligada al hilo y un INSERT sobre ella
+ * nunca se confirmaría. Más lento, pero el historial no pierde nada. Los eventos de transacciones que hacen rollback
+ * no se registran. El actor es el usuario del token Bearer; sin token (o con uno inválido) queda vacío.</p>
+ */
+@Service
+public class OrderEventLog {
+    private static final Logger log = LoggerFactory.getLogger(OrderEventLog.class);
+
+    private static final String INSERT = "insert into production_order_events "
+            + "(order_id, event_type, from_status, to_status, actor, occurred_at, details) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_TEXT = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductionOrderEventRepository repository;
+    private final OrderEventRing<ProductionOrderEvent> ring;
+    private final TransactionTemplate overflowTransaction;
+    private final int batchSize;
+
+    // Lote drenado que todavía no se pudo escribir; sólo lo toca flush()
+    private final List<ProductionOrderEvent> pending = new ArrayList<>();
+
+    private final Counter written;
+    private final Counter overflow;
+
+    public OrderEventLog(
+            JdbcTemplate jdbcTemplate,
+            ProductionOrderEventRepository repository,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager,
+            @Value("${orders.events.buffer-size:16384}") int bufferSize,
+            @Value("${orders.events.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.ring = new OrderEventRing<>(bufferSize);
+        this.overflowTransaction = new TransactionTemplate(transactionManager);
+        this.overflowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+
+        Gauge.builder("orders.events.backlog", ring, OrderEventRing::size)
+                .description("Eventos de órdenes encolados sin escribir")
+                .register(meterRegistry);
+        this.written = Counter.builder("orders.events.written").register(meterRegistry);
+        this.overflow = Counter.builder("orders.events.overflow").register(meterRegistry);
+    }
+
+    /** Arma un evento con la fecha actual y el usuario autenticado (si hay; "anonymousUser" no cuenta). */
+    public static ProductionOrderEvent event(Long orderId, ProductionOrderEvent.Type type,
+                                            Short fromStatus, Short toStatus, String details) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+        return ProductionOrderEvent.builder()
+                .orderId(orderId)
+                .type(type)
+                .fromStatus(fromStatus)
+                .toStatus(toStatus)
+                .actor(authenticated ? truncate(authentication.getName()) : null)
+                .occurredAt(Instant.now())
+                .details(truncate(details))
+                .build();
+    }
+
+    /** Igual, con el equipo y el estado de la orden para filtrar el stream de cambios. */
+    public static ProductionOrderEvent event(ProductionOrder order, ProductionOrderEvent.Type type,
+                                            Short fromStatus, Short toStatus, String details) {
+        ProductionOrderEvent event = event(order.getId(), type, fromStatus, toStatus, details);
+        event.setTeamId(order.getTeamId());
+        event.setStatusId(toStatus != null ? toStatus : order.getStatusId());
+        return event;
+    }
+
+    // fallbackExecution: fuera de una transacción se registra igual, en el momento
+    @TransactionalEventListener(fallbackExecution = true)
+    public void append(ProductionOrderEvent event) {
+        if (!ring.offer(event)) {
+            overflow.increment();
+            // REQUIRES_NEW: en AFTER_COMMIT la transacción del request ya terminó pero su conexión sigue ligada
+            overflowTransaction.executeWithoutResult(status -> insert(List.of(event)));
+            written.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.events.flush-interval:200ms}")
+    public synchronized void flush() {
+        try {
+            while (true) {
+                if (pending.isEmpty() && ring.drainTo(pending, batchSize) == 0) {
+                    return;
+                }
+                insert(pending);
+                written.increment(pending.size());
+                pending.clear();
+            }
+        } catch (DataAccessException e) {
+            // pending se conserva y se reintenta en la próxima pasada
+            log.warn("Could not write {} order events, will retry: {}", pending.size(), e.getMessage());
+        }
+    }
+
+    /** Historial de la orden en orden cronológico, incluyendo lo que todavía estaba en la cola. */
+    public List<ProductionOrderEvent> timeline(Long orderId) {
+        flush();
+        return repository.findByOrderIdOrderByOccurredAtAscIdAsc(orderId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        if (!pending.isEmpty() || ring.size() > 0) {
+            log.error("Lost {} order events on shutdown", pending.size() + ring.size());
+        }
+    }
+
+    private void insert(List<ProductionOrderEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.getOrderId());
+            ps.setString(2, event.getType().name());
+            ps.setObject(3, event.getFromStatus(), Types.SMALLINT);
+            ps.setObject(4, event.getToStatus(), Types.SMALLINT);
+            ps.setString(5, event.getActor());
+            ps.setObject(6, event.getOccurredAt().atOffset(ZoneOffset.UTC));
+            ps.setString(7, event.getDetails());
+        });
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_TEXT ? value.substring(0, MAX_TEXT) : value;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cola acotada sin locks para muchos productores y un único consumidor (array circular con números de secuencia).
+ *
+ * <p>Cada celda guarda la posición que espera: un productor reserva la posición con un CAS sobre {@code tail},
+ * escribe el elemento y publica la celda con {@code pos + 1}; el consumidor la lee cuando ve esa secuencia y la
+ * libera para la vuelta siguiente con {@code pos + capacity}. Sólo {@link #drainTo} asume un único consumidor.</p>
+ */
+final class OrderEventRing<T> {
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    OrderEventRing(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /** Encola sin bloquear; devuelve false si está lleno. */
+    boolean offer(T element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** Pasa hasta {@code max} elementos a {@code target} en orden de llegada. Un solo hilo a la vez. */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<T> target, int max) {
+        long pos = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                break;
+            }
+            target.add((T) elements[index]);
+            elements[index] = null;
+            sequences.set(index, pos + elements.length);
+            pos++;
+            drained++;
+        }
+        head = pos;
+        return drained;
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /** Aproximado: sólo para métricas. */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.services;
+
+/** La orden no estaba en el estado que exige la transición (o otro request la movió antes): responde 409. */
+public class OrderStatusConflictException extends IllegalStateException {
+    public OrderStatusConflictException(short expected, Short actual) {
+        super("Estado inválido. Esperado=" + expected + " actual=" + actual);
+    }
+}
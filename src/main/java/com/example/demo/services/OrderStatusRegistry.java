@@ -0,0 +1,125 @@
+package com.example.demo.services;
+
+import com.example.demo.model.OrderStatus;
+import com.example.demo.repositories.OrderStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estados de orden cargados de order_status en memoria, indexados por id en un array.
+ *
+ * <p>Al cargar se precalcula la matriz de transiciones {@code [estado actual][transición] -> estado destino},
+ * así validar una transición es un acceso a array sin boxing ni consultas. Todo vive en un snapshot inmutable
+ * que {@link #reload()} reemplaza de una vez; si la tabla no tiene algún código que usan las transiciones,
+ * la recarga falla y se conserva el snapshot anterior.</p>
+ */
+@Service
+public class OrderStatusRegistry {
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusRegistry.class);
+
+    private static final short NONE = -1;
+    private static final OrderTransition[] TRANSITIONS = OrderTransition.values();
+
+    private final OrderStatusRepository repository;
+    private volatile Snapshot snapshot;
+
+    public OrderStatusRegistry(OrderStatusRepository repository) {
+        this.repository = repository;
+        reload();
+    }
+
+    /** Relee order_status y recalcula la matriz. */
+    public synchronized void reload() {
+        snapshot = Snapshot.of(repository.findAll());
+        log.info("Loaded {} order statuses", snapshot.statuses().size());
+    }
+
+    public List<OrderStatus> statuses() {
+        return snapshot.statuses();
+    }
+
+    public boolean exists(int statusId) {
+        OrderStatus[] byId = snapshot.byId();
+        return statusId >= 0 && statusId < byId.length && byId[statusId] != null;
+    }
+
+    public short initialStatus() {
+        return snapshot.initial();
+    }
+
+    /** Estado de origen que exige la transición. */
+    public short from(OrderTransition transition) {
+        return snapshot.from()[transition.ordinal()];
+    }
+
+    /** Estado destino de la transición. */
+    public short to(OrderTransition transition) {
+        return snapshot.to()[transition.ordinal()];
+    }
+
+    /** Estado al que lleva {@code transition} desde {@code statusId}, o -1 si no se puede aplicar. */
+    public short target(int statusId, OrderTransition transition) {
+        short[][] matrix = snapshot.matrix();
+        if (statusId < 0 || statusId >= matrix.length) {
+            return NONE;
+        }
+        return matrix[statusId][transition.ordinal()];
+    }
+
+    public boolean canApply(int statusId, OrderTransition transition) {
+        return target(statusId, transition) != NONE;
+    }
+
+    private record Snapshot(List<OrderStatus> statuses, OrderStatus[] byId, short initial,
+                            short[] from, short[] to, short[][] matrix) {
+
+        static Snapshot of(List<OrderStatus> rows) {
+            int max = -1;
+            Map<String, Short> idsByCode = new HashMap<>();
+            for (OrderStatus status : rows) {
+                if (status.getId() < 0) {
+                    throw new IllegalStateException("Negative order status id " + status.getId());
+                }
+                max = Math.max(max, status.getId());
+                idsByCode.put(status.getCode(), status.getId());
+            }
+            OrderStatus[] byId = new OrderStatus[max + 1];
+            for (OrderStatus status : rows) {
+                byId[status.getId()] = status;
+            }
+
+            short[] from = new short[TRANSITIONS.length];
+            short[] to = new short[TRANSITIONS.length];
+            short[][] matrix = new short[max + 1][TRANSITIONS.length];
+            for (short[] row : matrix) {
+                Arrays.fill(row, NONE);
+            }
+            for (OrderTransition transition : TRANSITIONS) {
+                from[transition.ordinal()] = require(idsByCode, transition.fromCode());
+                to[transition.ordinal()] = require(idsByCode, transition.toCode());
+                matrix[from[transition.ordinal()]][transition.ordinal()] = to[transition.ordinal()];
+            }
+
+            List<OrderStatus> sorted = new ArrayList<>(rows);
+            sorted.sort((a, b) -> Short.compare(a.getId(), b.getId()));
+            return new Snapshot(Collections.unmodifiableList(sorted), byId,
+                    require(idsByCode, OrderTransition.INITIAL_STATUS), from, to, matrix);
+        }
+
+        private static short require(Map<String, Short> idsByCode, String code) {
+            Short id = idsByCode.get(code);
+            if (id == null) {
+                throw new IllegalStateException("order_status has no row with code " + code);
+            }
+            return id;
+        }
+    }
+}
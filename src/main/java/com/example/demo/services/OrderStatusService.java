@@ -2,20 +2,62 @@ package com.example.demo.services;
 
 
 import com.example.demo.model.OrderStatus;
-import com.example.demo.repositories.OrderStatusRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
 
 @Service
 public class OrderStatusService {
-    private final OrderStatusRepository orderStatusRepository;
+    private final OrderStatusRegistry registry;
+    private final ObjectMapper objectMapper;
 
-    public OrderStatusService(OrderStatusRepository orderStatusRepository) {
-        this.orderStatusRepository = orderStatusRepository;
+    // JSON del listado ya serializado; se rehace sólo cuando el registro cambia de snapshot
+    private volatile Rendered rendered;
+
+    public OrderStatusService(OrderStatusRegistry registry, ObjectMapper objectMapper) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
     }
 
     public List<OrderStatus> getAllStatuses() {
-        return orderStatusRepository.findAll();
+        return registry.statuses();
+    }
+
+    /** El listado como JSON precalculado, con un ETag fuerte (SHA-256 de los bytes). */
+    public StatusesJson getAllStatusesJson() {
+        List<OrderStatus> statuses = registry.statuses();
+        Rendered current = rendered;
+        if (current == null || current.source() != statuses) {
+            current = new Rendered(statuses, render(statuses));
+            rendered = current;
+        }
+        return current.json();
+    }
+
+    /** Vuelve a leer order_status; hace falta después de cambiar la tabla a mano. */
+    public List<OrderStatus> reload() {
+        registry.reload();
+        return registry.statuses();
+    }
+
+    private StatusesJson render(List<OrderStatus> statuses) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(statuses);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return new StatusesJson(json, "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"");
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not serialize order statuses", e);
+        }
+    }
+
+    public record StatusesJson(byte[] body, String etag) {
+    }
+
+    private record Rendered(List<OrderStatus> source, StatusesJson json) {
     }
 }
@@ -0,0 +1,31 @@
+package com.example.demo.services;
+
+/**
+ * Transiciones del flujo de estados de una orden, por código de order_status.
+ * Los ids se resuelven en {@link OrderStatusRegistry}, así no pueden desalinearse con la tabla.
+ */
+public enum OrderTransition {
+    CONFIRM("IN_PROGRESS", "SCHEDULED"),
+    START("SCHEDULED", "IN_PROGRESS"),
+    FINISH("IN_PROGRESS", "FOR_DELIVERY"),
+    DELIVER("FOR_DELIVERY", "COMPLETED");
+
+    /** Estado con el que nace una orden si no se indica otro. */
+    public static final String INITIAL_STATUS = "IN_PROGRESS";
+
+    private final String fromCode;
+    private final String toCode;
+
+    OrderTransition(String fromCode, String toCode) {
+        this.fromCode = fromCode;
+        this.toCode = toCode;
+    }
+
+    public String fromCode() {
+        return fromCode;
+    }
+
+    public String toCode() {
+        return toCode;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderItem;
+import com.example.demo.repositories.ProductionOrderSpecifications;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de órdenes (y opcionalmente sus ítems) en NDJSON o CSV con memoria constante.
+ *
+ * <p>Las órdenes y los ítems se leen con dos cursores de base de datos (fetch size acotado) ordenados por
+ * id de orden y se combinan con un merge join: en memoria sólo están los ítems de la orden que se está
+ * escribiendo. Cada entidad se saca del contexto de persistencia apenas se escribe.</p>
+ *
+ * <p>El CSV usa los mismos nombres de columna que la importación, así que un export se puede reimportar.</p>
+ */
+@Service
+public class ProductionOrderExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    static final List<String> ORDER_COLUMNS = List.of(
+            "orderId", "orderUUID", "orderNumber", "customerId", "teamId", "statusId", "startDate", "endDate",
+            "orderNotes", "createdAt");
+    static final List<String> ITEM_COLUMNS = List.of(
+            "itemId", "productType", "widthMm", "heightMm", "quantity", "profileId", "glassTypeId", "hardwareKitId",
+            "itemNotes");
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ProductionOrderExportService(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${orders.export.fetch-size:500}") int fetchSize
+    ) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Sólo lectura: sin flush ni snapshots, y en PostgreSQL el cursor con fetch size requiere transacción
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /** Escribe todas las órdenes que cumplen {@code filter}, por id ascendente. No cierra {@code out}. */
+    public void export(ProductionOrderFilter filter, boolean includeItems, Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer, includeItems) : new NdjsonRowWriter(writer);
+        transactionTemplate.executeWithoutResult(status -> {
+            Specification<ProductionOrder> spec = ProductionOrderSpecifications.matching(filter);
+            try (Stream<ProductionOrder> orders = streamOrders(spec);
+                 Stream<ProductionOrderItem> items = includeItems ? streamItems(spec) : Stream.empty()) {
+                Iterator<ProductionOrderItem> itemIterator = items.iterator();
+                ProductionOrderItem nextItem = itemIterator.hasNext() ? itemIterator.next() : null;
+                List<ProductionOrderItem> orderItems = new ArrayList<>();
+                for (Iterator<ProductionOrder> it = orders.iterator(); it.hasNext(); ) {
+                    ProductionOrder order = it.next();
+                    orderItems.clear();
+                    // Ambos cursores vienen por id de orden: se consumen los ítems hasta pasar la orden actual
+                    while (nextItem != null && nextItem.getOrderId() <= order.getId()) {
+                        if (nextItem.getOrderId().equals(order.getId())) {
+                            orderItems.add(nextItem);
+                        }
+                        entityManager.detach(nextItem);
+                        nextItem = itemIterator.hasNext() ? itemIterator.next() : null;
+                    }
+                    rows.write(ProductionOrderService.toDto(order), includeItems ? orderItems : null);
+                    entityManager.detach(order);
+                }
+                rows.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Stream<ProductionOrder> streamOrders(Specification<ProductionOrder> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductionOrder> query = cb.createQuery(ProductionOrder.class);
+        Root<ProductionOrder> root = query.from(ProductionOrder.class);
+        query.where(spec.toPredicate(root, query, cb)).orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // Mismo filtro que las órdenes vía subquery, así el merge join ve exactamente los ítems de esas órdenes
+    private Stream<ProductionOrderItem> streamItems(Specification<ProductionOrder> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductionOrderItem> query = cb.createQuery(ProductionOrderItem.class);
+        Root<ProductionOrderItem> item = query.from(ProductionOrderItem.class);
+        Subquery<Long> orderIds = query.subquery(Long.class);
+        Root<ProductionOrder> order = orderIds.from(ProductionOrder.class);
+        orderIds.select(order.get("id")).where(spec.toPredicate(order, query, cb));
+        query.where(item.get("orderId").in(orderIds)).orderBy(cb.asc(item.get("orderId")), cb.asc(item.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private interface RowWriter {
+        /** {@code items} es null cuando no se pidieron ítems. */
+        void write(ProductionOrderDto order, List<ProductionOrderItem> items) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /** Una orden por línea; con ítems, van anidados en "items". */
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) {
+            try {
+                this.generator = objectMapper.createGenerator(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void write(ProductionOrderDto order, List<ProductionOrderItem> items) throws IOException {
+            ObjectNode node = objectMapper.valueToTree(order);
+            if (items != null) {
+                node.set("items", objectMapper.valueToTree(items));
+            }
+            generator.writeTree(node);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /** Una fila por ítem (las órdenes sin ítems salen en una fila con las columnas de ítem vacías). */
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer, boolean includeItems) {
+            this.writer = writer;
+            List<String> header = new ArrayList<>(ORDER_COLUMNS);
+            if (includeItems) {
+                header.addAll(ITEM_COLUMNS);
+            }
+            try {
+                Csv.writeRecord(writer, header.toArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void write(ProductionOrderDto order, List<ProductionOrderItem> items) throws IOException {
+            if (items == null) {
+                Csv.writeRecord(writer, orderFields(order));
+                return;
+            }
+            if (items.isEmpty()) {
+                Csv.writeRecord(writer, concat(orderFields(order), new Object[ITEM_COLUMNS.size()]));
+                return;
+            }
+            for (ProductionOrderItem item : items) {
+                Csv.writeRecord(writer, concat(orderFields(order), new Object[]{
+                        item.getId(), item.getProductType(), item.getWidthMm(), item.getHeightMm(),
+                        item.getQuantity(), item.getProfileId(), item.getGlassTypeId(), item.getHardwareKitId(),
+                        item.getNotes()}));
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static Object[] orderFields(ProductionOrderDto order) {
+            return new Object[]{
+                    order.getId(), order.getOrderUUID(), order.getOrderNumber(), order.getCustomerId(),
+                    order.getTeamId(), order.getStatusId(), order.getStartDate(), order.getEndDate(),
+                    order.getNotes(), order.getCreatedAt()};
+        }
+
+        private static Object[] concat(Object[] first, Object[] second) {
+            Object[] result = new Object[first.length + second.length];
+            System.arraycopy(first, 0, result, 0, first.length);
+            System.arraycopy(second, 0, result, first.length, second.length);
+            return result;
+        }
+    }
+}
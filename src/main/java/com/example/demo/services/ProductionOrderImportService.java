@@ -0,0 +1,446 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ImportReportDto;
+import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.dto.ProductionOrderImportDto;
+import com.example.demo.dto.ProductionOrderItemDto;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderEvent;
+import com.example.demo.model.ProductionOrderItem;
+import com.example.demo.repositories.ProductionOrderItemRepository;
+import com.example.demo.repositories.ProductionOrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Importación masiva de órdenes con sus ítems desde CSV o NDJSON.
+ *
+ * <p>El archivo se lee en streaming (nunca entero en memoria) y se escribe en transacciones de
+ * {@code orders.import.chunk-size} órdenes: los INSERT salen en lotes JDBC gracias a los ids por secuencia.
+ * Las filas inválidas no detienen la importación; se informan en el reporte con su número de línea.
+ * Si un chunk falla en la base, se reintenta orden por orden para aislar la que lo rompió. Si el error no es de
+ * los datos de una orden (p. ej. se cayó la conexión), la importación se corta y se devuelve el reporte parcial
+ * con {@code aborted}: lo ya informado como importado quedó confirmado.</p>
+ *
+ * <p>CSV: una fila por ítem con encabezado; las filas consecutivas con el mismo orderNumber forman una orden
+ * y los datos de la orden se toman de la primera. Una fila sin productType es una orden sin ítems.
+ * NDJSON: una orden por línea con sus ítems en "items".</p>
+ */
+@Service
+public class ProductionOrderImportService {
+    private static final Logger log = LoggerFactory.getLogger(ProductionOrderImportService.class);
+
+    static final List<String> CSV_COLUMNS = List.of(
+            "orderNumber", "customerId", "teamId", "statusId", "startDate", "endDate", "orderNotes",
+            "productType", "widthMm", "heightMm", "quantity", "profileId", "glassTypeId", "hardwareKitId", "itemNotes");
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final ProductionOrderRepository repository;
+    private final ProductionOrderItemRepository itemRepository;
+    private final OrderStatusRegistry statusRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public ProductionOrderImportService(
+            ProductionOrderRepository repository,
+            ProductionOrderItemRepository itemRepository,
+            OrderStatusRegistry statusRegistry,
+            ApplicationEventPublisher eventPublisher,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${orders.import.chunk-size:500}") int chunkSize,
+            @Value("${orders.import.max-errors:1000}") int maxErrors
+    ) {
+        this.repository = repository;
+        this.itemRepository = itemRepository;
+        this.statusRegistry = statusRegistry;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ImportReportDto importCsv(InputStream input) throws IOException {
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            return run(new CsvSource(Csv.reader(reader)));
+        }
+    }
+
+    public ImportReportDto importNdjson(InputStream input) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            return run(new NdjsonSource(reader, objectMapper));
+        }
+    }
+
+    private ImportReportDto run(OrderSource source) throws IOException {
+        long started = System.nanoTime();
+        ImportReportDto report = new ImportReportDto();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        Row row;
+        while ((row = source.next()) != null) {
+            String error = row.error() != null ? row.error() : validate(row.order());
+            if (error == null && row.order().getStatusId() != null && !statusRegistry.exists(row.order().getStatusId())) {
+                error = "Unknown statusId " + row.order().getStatusId();
+            }
+            if (error != null) {
+                reject(report, row, error);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                if (!write(chunk, report)) {
+                    break;
+                }
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty() && !report.isAborted()) {
+            write(chunk, report);
+        }
+        report.setDurationMillis((System.nanoTime() - started) / 1_000_000);
+        log.info("Imported {} orders ({} items), rejected {} in {} ms",
+                report.getOrdersImported(), report.getItemsImported(), report.getOrdersRejected(),
+                report.getDurationMillis());
+        return report;
+    }
+
+    /** Escribe el chunk; devuelve false si hubo un error fatal y la importación tiene que cortarse. */
+    private boolean write(List<Row> chunk, ImportReportDto report) {
+        try {
+            long items = transactionTemplate.execute(status -> persist(chunk));
+            report.setOrdersImported(report.getOrdersImported() + chunk.size());
+            report.setItemsImported(report.getItemsImported() + items);
+            return true;
+        } catch (PersistenceException | DataAccessException e) {
+            // entityManager.flush() lanza la excepción de Hibernate sin traducir, por eso se atrapan las dos jerarquías.
+            // El rollback deja el chunk sin escribir: se reintenta de a una orden para rescatar las válidas
+            log.debug("Import chunk failed, retrying order by order", e);
+        }
+        for (Row row : chunk) {
+            try {
+                long items = transactionTemplate.execute(status -> persist(List.of(row)));
+                report.setOrdersImported(report.getOrdersImported() + 1);
+                report.setItemsImported(report.getItemsImported() + items);
+            } catch (PersistenceException | DataAccessException rowError) {
+                String message = NestedExceptionUtils.getMostSpecificCause(rowError).getMessage();
+                if (!isRowError(rowError)) {
+                    log.error("Import aborted at line {}", row.line(), rowError);
+                    report.setAborted(true);
+                    report.setAbortReason("Line " + row.line() + ": " + message);
+                    return false;
+                }
+                reject(report, row, message);
+            }
+        }
+        return true;
+    }
+
+    /** Violación de constraint o dato inválido para la columna (SQLState 23xxx / 22xxx): la culpa es de la orden. */
+    private static boolean isRowError(RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                return sql.getSQLState().startsWith("23") || sql.getSQLState().startsWith("22");
+            }
+        }
+        return false;
+    }
+
+    // Órdenes primero (saveAll asigna los ids de la secuencia) y después todos los ítems del chunk
+    private long persist(List<Row> rows) {
+        List<ProductionOrder> orders = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            orders.add(ProductionOrderService.toEntity(toOrderDto(row.order()), statusRegistry.initialStatus()));
+        }
+        repository.saveAll(orders);
+        // Si el chunk hace rollback (y se reintenta de a una) estos eventos se descartan
+        for (ProductionOrder order : orders) {
+            eventPublisher.publishEvent(OrderEventLog.event(
+                    order, ProductionOrderEvent.Type.CREATED, null, order.getStatusId(), "import"));
+        }
+
+        List<ProductionOrderItem> items = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Long orderId = orders.get(i).getId();
+            for (ProductionOrderItemDto dto : rows.get(i).order().getItems()) {
+                items.add(ProductionOrderService.applyItem(new ProductionOrderItem(), orderId, dto));
+            }
+        }
+        itemRepository.saveAll(items);
+
+        // Con open-in-view el contexto de persistencia vive todo el request: se vacía para no acumular entidades
+        entityManager.flush();
+        entityManager.clear();
+        return items.size();
+    }
+
+    private void reject(ImportReportDto report, Row row, String message) {
+        report.setOrdersRejected(report.getOrdersRejected() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            String orderNumber = row.order() != null ? row.order().getOrderNumber() : null;
+            report.getErrors().add(new ImportReportDto.RowError(row.line(), orderNumber, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    /** Devuelve el primer problema de la orden o null si se puede importar. */
+    static String validate(ProductionOrderImportDto order) {
+        if (order.getOrderNumber() == null || order.getOrderNumber().isBlank()) {
+            return "orderNumber is mandatory";
+        }
+        if (order.getCustomerId() == null) {
+            return "customerId is mandatory";
+        }
+        String error = checkDate("startDate", order.getStartDate());
+        if (error == null) {
+            error = checkDate("endDate", order.getEndDate());
+        }
+        if (error == null) {
+            error = checkLength("orderNumber", order.getOrderNumber());
+        }
+        if (error == null) {
+            error = checkLength("notes", order.getNotes());
+        }
+        if (error != null) {
+            return error;
+        }
+        if (order.getItems() == null) {
+            order.setItems(new ArrayList<>());
+        }
+        for (int i = 0; i < order.getItems().size(); i++) {
+            ProductionOrderItemDto item = order.getItems().get(i);
+            if (item.getQuantity() == null) {
+                item.setQuantity(1);
+            }
+            if (item.getProductType() == null || item.getProductType().isBlank()) {
+                return "Item " + (i + 1) + ": productType is mandatory";
+            }
+            if (item.getWidthMm() == null || item.getWidthMm() <= 0 || item.getHeightMm() == null || item.getHeightMm() <= 0) {
+                return "Item " + (i + 1) + ": widthMm and heightMm must be positive";
+            }
+            if (item.getQuantity() < 1) {
+                return "Item " + (i + 1) + ": quantity must be at least 1";
+            }
+            error = checkLength("Item " + (i + 1) + ": productType", item.getProductType());
+            if (error == null) {
+                error = checkLength("Item " + (i + 1) + ": notes", item.getNotes());
+            }
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    private static String checkDate(String field, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            LocalDate.parse(value);
+            return null;
+        } catch (DateTimeParseException e) {
+            return field + " must be an ISO date (yyyy-MM-dd)";
+        }
+    }
+
+    private static String checkLength(String field, String value) {
+        return value != null && value.length() > MAX_TEXT_LENGTH
+                ? field + " exceeds " + MAX_TEXT_LENGTH + " characters"
+                : null;
+    }
+
+    private static ProductionOrderDto toOrderDto(ProductionOrderImportDto order) {
+        return ProductionOrderDto.builder()
+                .orderNumber(order.getOrderNumber())
+                .customerId(order.getCustomerId())
+                .teamId(order.getTeamId())
+                .statusId(order.getStatusId())
+                .startDate(order.getStartDate())
+                .endDate(order.getEndDate())
+                .notes(order.getNotes())
+                .build();
+    }
+
+    // ===============================
+    // =========== FUENTES ===========
+    // ===============================
+
+    /** Orden leída del archivo, o el motivo por el que no se pudo leer. */
+    private record Row(long line, ProductionOrderImportDto order, String error) {
+    }
+
+    private interface OrderSource {
+        /** Próxima orden, o null al final del archivo. */
+        Row next() throws IOException;
+    }
+
+    private static final class NdjsonSource implements OrderSource {
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        NdjsonSource(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new Row(line, objectMapper.readValue(text, ProductionOrderImportDto.class), null);
+                } catch (JsonProcessingException e) {
+                    return new Row(line, null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Agrupa las filas consecutivas con el mismo orderNumber; lee una fila de más para detectar el corte. */
+    private static final class CsvSource implements OrderSource {
+        private final Csv.RecordReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private List<String> pending;
+        private long pendingLine;
+
+        CsvSource(Csv.RecordReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Empty CSV");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim(), i);
+            }
+            if (!columns.containsKey("orderNumber") || !columns.containsKey("customerId")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "CSV header must include orderNumber and customerId; supported columns: " + CSV_COLUMNS);
+            }
+            advance();
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (pending == null) {
+                return null;
+            }
+            long line = pendingLine;
+            String orderNumber = value(pending, "orderNumber");
+            ProductionOrderImportDto order = new ProductionOrderImportDto();
+            String error = null;
+            try {
+                order.setOrderNumber(orderNumber);
+                order.setCustomerId(parse(pending, "customerId", Long::valueOf));
+                order.setTeamId(parse(pending, "teamId", Long::valueOf));
+                order.setStatusId(parse(pending, "statusId", Short::valueOf));
+                order.setStartDate(value(pending, "startDate"));
+                order.setEndDate(value(pending, "endDate"));
+                order.setNotes(value(pending, "orderNotes"));
+            } catch (NumberFormatException e) {
+                error = e.getMessage();
+            }
+            do {
+                if (error == null) {
+                    try {
+                        ProductionOrderItemDto item = toItem(pending);
+                        if (item != null) {
+                            order.getItems().add(item);
+                        }
+                    } catch (NumberFormatException e) {
+                        error = "Line " + pendingLine + ": " + e.getMessage();
+                    }
+                }
+                advance();
+            } while (pending != null && orderNumber != null && Objects.equals(orderNumber, value(pending, "orderNumber")));
+            return new Row(line, order, error);
+        }
+
+        private ProductionOrderItemDto toItem(List<String> record) {
+            String productType = value(record, "productType");
+            if (productType == null && value(record, "widthMm") == null && value(record, "heightMm") == null) {
+                return null;
+            }
+            ProductionOrderItemDto item = new ProductionOrderItemDto();
+            item.setProductType(productType);
+            item.setWidthMm(parse(record, "widthMm", Integer::valueOf));
+            item.setHeightMm(parse(record, "heightMm", Integer::valueOf));
+            item.setQuantity(parse(record, "quantity", Integer::valueOf));
+            item.setProfileId(parse(record, "profileId", Long::valueOf));
+            item.setGlassTypeId(parse(record, "glassTypeId", Long::valueOf));
+            item.setHardwareKitId(parse(record, "hardwareKitId", Long::valueOf));
+            item.setNotes(value(record, "itemNotes"));
+            return item;
+        }
+
+        private void advance() throws IOException {
+            pending = reader.next();
+            pendingLine = reader.recordLine();
+        }
+
+        private String value(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private <T> T parse(List<String> record, String column, Function<String, T> parser) {
+            String value = value(record, column);
+            try {
+                return value != null ? parser.apply(value) : null;
+            } catch (NumberFormatException e) {
+                throw new NumberFormatException(column + " is not a number: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.MaterialPlanDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderItem;
+import com.example.demo.repositories.ProductionOrderSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Requerimientos de material de todas las órdenes que cumplen un filtro, desglosados por perfil,
+ * tipo de vidrio, kit de herrajes y equipo.
+ *
+ * <p>Una sola consulta (ítems join órdenes, sin entidades) se lee en streaming a columnas de arrays primitivos;
+ * después se agrega en paralelo con fork/join: cada hoja acumula un rango con {@link MaterialCalculator.Totals}
+ * y los resultados parciales se combinan hacia arriba.</p>
+ */
+@Service
+public class ProductionOrderPlanningService {
+    // Los ids null (sin perfil, sin equipo, ...) se guardan así en los arrays primitivos
+    private static final long NONE = Long.MIN_VALUE;
+
+    private static final int ORDER = 0;
+    private static final int TEAM = 1;
+    private static final int PROFILE = 2;
+    private static final int GLASS = 3;
+    private static final int HARDWARE = 4;
+
+    private final EntityManager entityManager;
+    private final int fetchSize;
+    private final int leafSize;
+
+    public ProductionOrderPlanningService(
+            EntityManager entityManager,
+            @Value("${orders.planning.fetch-size:1000}") int fetchSize,
+            @Value("${orders.planning.leaf-size:4096}") int leafSize
+    ) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+        this.leafSize = leafSize;
+    }
+
+    @Transactional(readOnly = true)
+    public MaterialPlanDto plan(ProductionOrderFilter filter) {
+        Columns columns = load(filter);
+        Partial result = ForkJoinPool.commonPool().invoke(new AggregateTask(columns, 0, columns.size));
+        return MaterialPlanDto.builder()
+                .orderCount(countDistinct(columns.ids[ORDER], columns.size))
+                .itemCount(columns.size)
+                .totals(toLine(null, result.totals))
+                .byProfile(toLines(result.byProfile))
+                .byGlassType(toLines(result.byGlass))
+                .byHardwareKit(toLines(result.byHardware))
+                .byTeam(toLines(result.byTeam))
+                .build();
+    }
+
+    private Columns load(ProductionOrderFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<ProductionOrderItem> item = query.from(ProductionOrderItem.class);
+        Root<ProductionOrder> order = query.from(ProductionOrder.class);
+        query.multiselect(
+                        order.get("id"), order.get("teamId"),
+                        item.get("profileId"), item.get("glassTypeId"), item.get("hardwareKitId"),
+                        item.get("widthMm"), item.get("heightMm"), item.get("quantity"))
+                .where(cb.equal(item.get("orderId"), order.get("id")),
+                        ProductionOrderSpecifications.matching(filter).toPredicate(order, query, cb));
+
+        Columns columns = new Columns();
+        try (Stream<Object[]> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            rows.forEach(columns::add);
+        }
+        return columns;
+    }
+
+    private static long countDistinct(long[] values, int size) {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        long distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    private static List<MaterialPlanDto.Line> toLines(Map<Long, MaterialCalculator.Totals> totals) {
+        List<MaterialPlanDto.Line> lines = new ArrayList<>(totals.size());
+        totals.forEach((id, value) -> lines.add(toLine(id == NONE ? null : id, value)));
+        lines.sort(Comparator.comparing(MaterialPlanDto.Line::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return lines;
+    }
+
+    private static MaterialPlanDto.Line toLine(Long id, MaterialCalculator.Totals totals) {
+        return MaterialPlanDto.Line.builder()
+                .id(id)
+                .itemCount(totals.itemCount())
+                .profileMeters(totals.profileMeters())
+                .glassSquareMeters(totals.glassSquareMeters())
+                .hardwareUnits(totals.hardwareUnits())
+                .build();
+    }
+
+    /** Filas de la consulta en arrays primitivos que crecen por duplicación. */
+    private static final class Columns {
+        long[][] ids = new long[5][1024];
+        int[] widths = new int[1024];
+        int[] heights = new int[1024];
+        int[] quantities = new int[1024];
+        int size;
+
+        void add(Object[] row) {
+            if (size == widths.length) {
+                int capacity = size * 2;
+                for (int k = 0; k < ids.length; k++) {
+                    ids[k] = Arrays.copyOf(ids[k], capacity);
+                }
+                widths = Arrays.copyOf(widths, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+            }
+            for (int k = 0; k < ids.length; k++) {
+                ids[k][size] = row[k] != null ? (Long) row[k] : NONE;
+            }
+            widths[size] = (Integer) row[5];
+            heights[size] = (Integer) row[6];
+            quantities[size] = (Integer) row[7];
+            size++;
+        }
+    }
+
+    private static final class Partial {
+        final MaterialCalculator.Totals totals = new MaterialCalculator.Totals();
+        final Map<Long, MaterialCalculator.Totals> byTeam = new HashMap<>();
+        final Map<Long, MaterialCalculator.Totals> byProfile = new HashMap<>();
+        final Map<Long, MaterialCalculator.Totals> byGlass = new HashMap<>();
+        final Map<Long, MaterialCalculator.Totals> byHardware = new HashMap<>();
+
+        Partial merge(Partial other) {
+            totals.merge(other.totals);
+            mergeInto(byTeam, other.byTeam);
+            mergeInto(byProfile, other.byProfile);
+            mergeInto(byGlass, other.byGlass);
+            mergeInto(byHardware, other.byHardware);
+            return this;
+        }
+
+        private static void mergeInto(Map<Long, MaterialCalculator.Totals> target, Map<Long, MaterialCalculator.Totals> source) {
+            source.forEach((key, value) -> target.merge(key, value, MaterialCalculator.Totals::merge));
+        }
+    }
+
+    private final class AggregateTask extends RecursiveTask<Partial> {
+        private final Columns columns;
+        private final int from;
+        private final int to;
+
+        AggregateTask(Columns columns, int from, int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= leafSize) {
+                return leaf();
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(columns, from, middle);
+            left.fork();
+            Partial right = new AggregateTask(columns, middle, to).compute();
+            return left.join().merge(right);
+        }
+
+        private Partial leaf() {
+            Partial partial = new Partial();
+            partial.totals.addAll(columns.widths, columns.heights, columns.quantities, from, to);
+            for (int i = from; i < to; i++) {
+                int width = columns.widths[i];
+                int height = columns.heights[i];
+                int quantity = columns.quantities[i];
+                add(partial.byTeam, columns.ids[TEAM][i], width, height, quantity);
+                add(partial.byProfile, columns.ids[PROFILE][i], width, height, quantity);
+                add(partial.byGlass, columns.ids[GLASS][i], width, height, quantity);
+                add(partial.byHardware, columns.ids[HARDWARE][i], width, height, quantity);
+            }
+            return partial;
+        }
+
+        private void add(Map<Long, MaterialCalculator.Totals> totals, long key, int width, int height, int quantity) {
+            totals.computeIfAbsent(key, k -> new MaterialCalculator.Totals()).add(width, height, quantity);
+        }
+    }
+}
@@ -1,21 +1,38 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.BulkTransitionResultDto;
 import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.dto.ProductionOrderPage;
 import com.example.demo.dto.ProductionOrderItemDto;
+import com.example.demo.dto.ProductionOrderItemsPatchDto;
 import com.example.demo.dto.ProductionOrderSummaryDto;
 import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderEvent;
 import com.example.demo.model.ProductionOrderItem;
 import com.example.demo.repositories.ProductionOrderItemRepository;
 import com.example.demo.repositories.ProductionOrderRepository;
+import com.example.demo.repositories.ProductionOrderSpecifications;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 import static java.util.stream.Collectors.toList;
@@ -27,18 +44,19 @@ public class ProductionOrderService {
 
     private final ProductionOrderRepository repository;
     private final ProductionOrderItemRepository itemRepository;
+    private final ProductionOrderSummaryCache summaryCache;
+    private final OrderStatusRegistry statusRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
-    // Estados (Short)
-    private static final Short IN_PROGRESS  = (short) 1;
-    private static final Short SCHEDULED    = (short) 2;
-    private static final Short FOR_DELIVERY = (short) 3;
-    private static final Short COMPLETED    = (short) 4;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BULK_TRANSITION = 1000;
 
     // ===============================
     // ========= CONVERSORES =========
     // ===============================
 
-    private ProductionOrderDto toDto(ProductionOrder entity) {
+    static ProductionOrderDto toDto(ProductionOrder entity) {
         return ProductionOrderDto.builder()
                 .id(entity.getId())
                 .orderUUID(entity.getOrderUUID())
@@ -50,18 +68,19 @@ public class ProductionOrderService {
                 .endDate(entity.getEndDate() != null ? entity.getEndDate().toString() : null)
                 .notes(entity.getNotes())
                 .createdAt(entity.getCreatedAt())
+                .version(entity.getVersion())
                 .build();
     }
 
-    private ProductionOrder toEntity(ProductionOrderDto dto) {
+    /** Siempre una orden nueva: el id que mande el cliente se ignora (con @Version, un id asignado no es un alta). */
+    static ProductionOrder toEntity(ProductionOrderDto dto, short defaultStatus) {
         return ProductionOrder.builder()
-                .id(dto.getId())
                 .orderUUID(dto.getOrderUUID() != null ? dto.getOrderUUID() : UUID.randomUUID())
-                .orderNumber(dto.getOrderNumber())
+                .orderNumber(orderNumber(dto.getOrderNumber()))
                 .customerId(dto.getCustomerId())
                 .teamId(dto.getTeamId())
-                // CAMBIO: si no viene estado, default IN_PROGRESS (1)
-                .statusId(dto.getStatusId() != null ? dto.getStatusId() : IN_PROGRESS)
+                // si no viene estado, el inicial del registro (IN_PROGRESS)
+                .statusId(dto.getStatusId() != null ? dto.getStatusId() : defaultStatus)
                 .startDate(dto.getStartDate() != null ? LocalDate.parse(dto.getStartDate()) : null)
                 .endDate(dto.getEndDate() != null ? LocalDate.parse(dto.getEndDate()) : null)
                 .notes(dto.getNotes())
@@ -73,25 +92,72 @@ public class ProductionOrderService {
     // ===============================
 
     public ProductionOrderDto create(ProductionOrderDto dto) {
-        ProductionOrder saved = repository.save(toEntity(dto));
+        checkStatus(dto.getStatusId());
+        ProductionOrder saved = repository.save(toEntity(dto, statusRegistry.initialStatus()));
+        record(saved, ProductionOrderEvent.Type.CREATED, null, saved.getStatusId(), null);
         return toDto(saved);
     }
 
-    public List<ProductionOrderDto> getAll() {
-        return repository.findAll().stream().map(this::toDto).collect(toList());
+    /**
+     * Página de órdenes por keyset sobre (created_at, id), de la más nueva a la más vieja.
+     * Se pide un registro de más para saber si hay página siguiente sin hacer un COUNT.
+     * Sin limit ni cursor devuelve todas las órdenes que cumplen el filtro, como antes de paginar,
+     * para no cortar a los clientes existentes; DEFAULT_PAGE_SIZE aplica cuando sólo viene el cursor.
+     */
+    @Transactional(readOnly = true)
+    public ProductionOrderPage getPage(ProductionOrderFilter filter, String cursor, Integer limit) {
+        boolean hasCursor = cursor != null && !cursor.isBlank();
+        Specification<ProductionOrder> spec = ProductionOrderSpecifications.matching(filter);
+        if (limit == null && !hasCursor) {
+            List<ProductionOrder> all = repository.findBy(spec, q -> q
+                    .sortBy(ProductionOrderSpecifications.KEYSET_SORT)
+                    .all());
+            return new ProductionOrderPage(all.stream().map(ProductionOrderService::toDto).collect(toList()), null);
+        }
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (hasCursor) {
+            OrderCursor after = OrderCursor.decode(cursor);
+            spec = spec.and(ProductionOrderSpecifications.before(after.createdAt(), after.id()));
+        }
+        List<ProductionOrder> rows = repository.findBy(spec, q -> q
+                .sortBy(ProductionOrderSpecifications.KEYSET_SORT)
+                .limit(size + 1)
+                .all());
+
+        boolean hasMore = rows.size() > size;
+        List<ProductionOrder> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ProductionOrder last = page.get(page.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new ProductionOrderPage(page.stream().map(ProductionOrderService::toDto).collect(toList()), nextCursor);
     }
 
     public ProductionOrderDto getById(Long id) {
         return repository.findById(id)
-                .map(this::toDto)
+                .map(ProductionOrderService::toDto)
+                .orElseThrow(() -> new RuntimeException("Production order not found"));
+    }
+
+    /** Versión actual de la orden, para responder GETs condicionales sin cargarla. */
+    @Transactional(readOnly = true)
+    public long getVersion(Long id) {
+        return repository.findVersionById(id)
                 .orElseThrow(() -> new RuntimeException("Production order not found"));
     }
 
     public ProductionOrderDto update(Long id, ProductionOrderDto dto) {
         ProductionOrder existing = repository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Production order not found"));
+        if (dto.getVersion() != null && !dto.getVersion().equals(existing.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(ProductionOrder.class, id);
+        }
 
-        existing.setOrderNumber(dto.getOrderNumber());
+        checkStatus(dto.getStatusId());
+        Short previousStatus = existing.getStatusId();
+
+        existing.setOrderNumber(orderNumber(dto.getOrderNumber()));
         existing.setCustomerId(dto.getCustomerId());
         existing.setTeamId(dto.getTeamId());
         // si viene null no forzamos nada: puede mantenerse el actual
@@ -101,38 +167,134 @@ public class ProductionOrderService {
         existing.setNotes(dto.getNotes());
 
         ProductionOrder updated = repository.save(existing);
+        record(updated, ProductionOrderEvent.Type.UPDATED, previousStatus, updated.getStatusId(), null);
         return toDto(updated);
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(order -> {
+            repository.delete(order);
+            record(order, ProductionOrderEvent.Type.DELETED, order.getStatusId(), null, null);
+        });
+        summaryCache.evict(id);
     }
 
     // ===============================
     // ===== ÍTEMS DE PRODUCCIÓN =====
     // ===============================
 
+    /**
+     * Deja la orden exactamente con {@code items}: inserta los que no traen id, actualiza los que traen id
+     * (sólo se escriben los que cambiaron, por dirty checking) y borra en un solo DELETE los que no vinieron.
+     */
     public void addItems(Long orderId, List<ProductionOrderItemDto> items) {
-        ProductionOrder order = repository.findById(orderId)
+        ProductionOrder order = repository.lockForItemChange(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        summaryCache.evict(order.getId());
+        record(order, ProductionOrderEvent.Type.ITEMS_CHANGED, null, null, "replace: " + items.size() + " items");
 
-        itemRepository.deleteByOrderId(order.getId());
+        if (items.isEmpty()) {
+            itemRepository.deleteAllByOrderId(order.getId());
+            return;
+        }
 
+        Map<Long, ProductionOrderItem> existing = new HashMap<>();
+        for (ProductionOrderItem item : itemRepository.findByOrderId(order.getId())) {
+            existing.put(item.getId(), item);
+        }
+
+        List<ProductionOrderItem> inserts = new ArrayList<>();
+        Set<Long> kept = new HashSet<>();
         for (ProductionOrderItemDto dto : items) {
-            ProductionOrderItem item = new ProductionOrderItem();
-            item.setOrderId(order.getId());
-            item.setProductType(dto.getProductType());
-            item.setWidthMm(dto.getWidthMm());
-            item.setHeightMm(dto.getHeightMm());
-            item.setQuantity(dto.getQuantity());
-            item.setProfileId(dto.getProfileId());
-            item.setGlassTypeId(dto.getGlassTypeId());
-            item.setHardwareKitId(dto.getHardwareKitId());
-            item.setNotes(dto.getNotes());
-            itemRepository.save(item);
+            if (dto.getId() == null) {
+                inserts.add(applyItem(new ProductionOrderItem(), order.getId(), dto));
+            } else {
+                ProductionOrderItem current = existing.get(dto.getId());
+                if (current == null) {
+                    throw new IllegalArgumentException("Item " + dto.getId() + " does not belong to order " + orderId);
+                }
+                applyItem(current, order.getId(), dto);
+                kept.add(dto.getId());
+            }
+        }
+
+        Set<Long> removed = new HashSet<>(existing.keySet());
+        removed.removeAll(kept);
+        if (!removed.isEmpty()) {
+            itemRepository.deleteByOrderIdAndIdIn(order.getId(), removed);
+        }
+        // saveAll + ids de secuencia: Hibernate manda los INSERT en lotes de hibernate.jdbc.batch_size
+        if (!inserts.isEmpty()) {
+            itemRepository.saveAll(inserts);
         }
     }
 
+    /** Aplica sólo los cambios pedidos; devuelve los ítems insertados/actualizados (con su id). */
+    public List<ProductionOrderItem> patchItems(Long orderId, ProductionOrderItemsPatchDto patch) {
+        ProductionOrder order = repository.lockForItemChange(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        summaryCache.evict(order.getId());
+
+        List<ProductionOrderItemDto> upserts = patch.getUpsert() != null ? patch.getUpsert() : List.of();
+        List<Long> deletes = patch.getDelete() != null ? patch.getDelete() : List.of();
+        record(order, ProductionOrderEvent.Type.ITEMS_CHANGED, null, null,
+                "patch: " + upserts.size() + " upserted, " + deletes.size() + " deleted");
+
+        Set<Long> updateIds = new HashSet<>();
+        for (ProductionOrderItemDto dto : upserts) {
+            if (dto.getId() != null) {
+                updateIds.add(dto.getId());
+            }
+        }
+        if (deletes.stream().anyMatch(updateIds::contains)) {
+            throw new IllegalArgumentException("An item cannot be updated and deleted in the same patch");
+        }
+
+        Map<Long, ProductionOrderItem> toUpdate = new HashMap<>();
+        if (!updateIds.isEmpty()) {
+            for (ProductionOrderItem item : itemRepository.findByOrderIdAndIdIn(order.getId(), updateIds)) {
+                toUpdate.put(item.getId(), item);
+            }
+        }
+
+        List<ProductionOrderItem> result = new ArrayList<>(upserts.size());
+        List<ProductionOrderItem> inserts = new ArrayList<>();
+        for (ProductionOrderItemDto dto : upserts) {
+            if (dto.getId() == null) {
+                ProductionOrderItem item = applyItem(new ProductionOrderItem(), order.getId(), dto);
+                inserts.add(item);
+                result.add(item);
+            } else {
+                ProductionOrderItem current = toUpdate.get(dto.getId());
+                if (current == null) {
+                    throw new IllegalArgumentException("Item " + dto.getId() + " does not belong to order " + orderId);
+                }
+                result.add(applyItem(current, order.getId(), dto));
+            }
+        }
+
+        if (!deletes.isEmpty()) {
+            itemRepository.deleteByOrderIdAndIdIn(order.getId(), deletes);
+        }
+        if (!inserts.isEmpty()) {
+            itemRepository.saveAll(inserts);
+        }
+        return result;
+    }
+
+    static ProductionOrderItem applyItem(ProductionOrderItem item, Long orderId, ProductionOrderItemDto dto) {
+        item.setOrderId(orderId);
+        item.setProductType(dto.getProductType());
+        item.setWidthMm(dto.getWidthMm());
+        item.setHeightMm(dto.getHeightMm());
+        item.setQuantity(dto.getQuantity());
+        item.setProfileId(dto.getProfileId());
+        item.setGlassTypeId(dto.getGlassTypeId());
+        item.setHardwareKitId(dto.getHardwareKitId());
+        item.setNotes(dto.getNotes());
+        return item;
+    }
+
     public List<ProductionOrderItem> getItemsByOrderId(Long orderId) {
         return itemRepository.findByOrderId(orderId);
     }
@@ -141,107 +303,181 @@ public class ProductionOrderService {
     // =========== SUMMARY ===========
     // ===============================
 
+    /**
+     * Desglose por ítem y totales de material. Los totales se suman en punto fijo sobre los mismos ítems
+     * leídos para el desglose, así que siempre coinciden con lo listado; el resultado se cachea por orden
+     * y versión, y su {@code version} es la que corresponde usar como ETag.
+     */
+    @Transactional(readOnly = true)
     public ProductionOrderSummaryDto buildSummary(Long orderId) {
+        return summaryCache.get(orderId, getVersion(orderId), this::computeSummary);
+    }
+
+    private ProductionOrderSummaryDto computeSummary(Long orderId) {
         var order = repository.findById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
 
+        // La versión se lee antes que los ítems: el cambio que la sube hace commit junto con ellos,
+        // así que los ítems leídos después son al menos tan nuevos como la versión
         var items = itemRepository.findByOrderId(order.getId());
-
-        var itemSummaries = items.stream().map(it -> {
-            double profile = 2.0 * (it.getWidthMm() + it.getHeightMm()) / 1000.0 * it.getQuantity();
-            double glass   = (it.getWidthMm() * it.getHeightMm()) / 1_000_000.0 * it.getQuantity();
-            int hardware   = it.getQuantity();
-
-            return ProductionOrderSummaryDto.ItemSummary.builder()
+        int count = items.size();
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        int[] quantities = new int[count];
+        for (int i = 0; i < count; i++) {
+            ProductionOrderItem it = items.get(i);
+            widths[i] = it.getWidthMm();
+            heights[i] = it.getHeightMm();
+            quantities[i] = it.getQuantity();
+        }
+        long[] profileMm = new long[count];
+        long[] glassMm2 = new long[count];
+        MaterialCalculator.compute(widths, heights, quantities, count, profileMm, glassMm2);
+        MaterialCalculator.Totals totals = new MaterialCalculator.Totals().addAll(widths, heights, quantities, 0, count);
+
+        List<ProductionOrderSummaryDto.ItemSummary> itemSummaries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProductionOrderItem it = items.get(i);
+            itemSummaries.add(ProductionOrderSummaryDto.ItemSummary.builder()
                     .id(it.getId())
                     .productType(it.getProductType())
                     .widthMm(it.getWidthMm())
                     .heightMm(it.getHeightMm())
                     .quantity(it.getQuantity())
-                    .profileMeters(round(profile))
-                    .glassSquareMeters(round(glass))
-                    .hardwareUnits(hardware)
-                    .build();
-        }).collect(toList());
-
-        double totalProfile = itemSummaries.stream()
-                .mapToDouble(ProductionOrderSummaryDto.ItemSummary::getProfileMeters).sum();
-        double totalGlass = itemSummaries.stream()
-                .mapToDouble(ProductionOrderSummaryDto.ItemSummary::getGlassSquareMeters).sum();
-        int totalHardware = itemSummaries.stream()
-                .mapToInt(ProductionOrderSummaryDto.ItemSummary::getHardwareUnits).sum();
+                    .profileMeters(MaterialCalculator.toMeters(profileMm[i]))
+                    .glassSquareMeters(MaterialCalculator.toSquareMeters(glassMm2[i]))
+                    .hardwareUnits(quantities[i])
+                    .profileMm(profileMm[i])
+                    .glassMm2(glassMm2[i])
+                    .build());
+        }
 
         return ProductionOrderSummaryDto.builder()
                 .orderId(order.getId())
+                .version(order.getVersion())
                 .items(itemSummaries)
                 .requirements(ProductionOrderSummaryDto.Requirements.builder()
-                        .totalProfileMeters(round(totalProfile))
-                        .totalGlassSquareMeters(round(totalGlass))
-                        .totalHardwareUnits(totalHardware)
+                        .totalProfileMeters(totals.profileMeters())
+                        .totalGlassSquareMeters(totals.glassSquareMeters())
+                        .totalHardwareUnits(Math.toIntExact(totals.hardwareUnits()))
+                        .totalProfileMm(totals.profileMm())
+                        .totalGlassMm2(totals.glassMm2())
                         .build())
                 .build();
     }
 
-    private static double round(double v) {
-        return BigDecimal.valueOf(v).setScale(3, RoundingMode.HALF_UP).doubleValue();
-    }
-
     // ===============================
     // ======== FLUJO ESTADOS ========
     // ===============================
 
-    private void assertStatus(ProductionOrder po, Short expected) {
-        if (po.getStatusId() == null || !po.getStatusId().equals(expected)) {
-            throw new IllegalStateException("Estado inválido. Esperado=" + expected + " actual=" + po.getStatusId());
-        }
-    }
-
-    private void ensureOrderNumber(ProductionOrder po) {
-        if (po.getOrderNumber() != null && !po.getOrderNumber().isBlank()) return;
-        String num = "ORD-" + Year.now() + "-" + po.getId();
-        po.setOrderNumber(num);
-    }
-
     /** Confirmar: IN_PROGRESS -> SCHEDULED (y asegura orderNumber). */
     public ProductionOrderDto confirm(Long id) {
-        var po = repository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
-
-        // CAMBIO: confirmar sólo desde IN_PROGRESS
-        assertStatus(po, IN_PROGRESS);
-        ensureOrderNumber(po);
-        po.setStatusId(SCHEDULED);
-        repository.save(po);
-        return toDto(po);
+        return transition(id, OrderTransition.CONFIRM);
     }
 
     /** Iniciar producción: SCHEDULED -> IN_PROGRESS */
     public ProductionOrderDto start(Long id) {
-        var po = repository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
-        assertStatus(po, SCHEDULED);
-        po.setStatusId(IN_PROGRESS);
-        repository.save(po);
-        return toDto(po);
+        return transition(id, OrderTransition.START);
     }
 
     /** Terminar producción: IN_PROGRESS -> FOR_DELIVERY */
     public ProductionOrderDto finish(Long id) {
-        var po = repository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
-        assertStatus(po, IN_PROGRESS);
-        po.setStatusId(FOR_DELIVERY);
-        repository.save(po);
-        return toDto(po);
+        return transition(id, OrderTransition.FINISH);
     }
 
     /** Entregar: FOR_DELIVERY -> COMPLETED */
     public ProductionOrderDto deliver(Long id) {
-        var po = repository.findById(id)
+        return transition(id, OrderTransition.DELIVER);
+    }
+
+    /**
+     * Un único UPDATE condicionado al estado de origen: de dos clicks simultáneos sólo uno afecta la fila,
+     * el otro ve 0 filas y recibe {@link OrderStatusConflictException} (409). También incrementa la versión,
+     * así un PUT concurrente con la versión vieja falla por optimistic locking.
+     */
+    public ProductionOrderDto transition(Long id, OrderTransition transition) {
+        if (apply(List.of(id), transition) == 0) {
+            var current = repository.findProjectedById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+            throw new OrderStatusConflictException(statusRegistry.from(transition), current.getStatusId());
+        }
+        ProductionOrder order = repository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
-        assertStatus(po, FOR_DELIVERY);
-        po.setStatusId(COMPLETED);
-        repository.save(po);
-        return toDto(po);
+        record(order, ProductionOrderEvent.Type.STATUS_CHANGED,
+                statusRegistry.from(transition), statusRegistry.to(transition), transition.name());
+        return toDto(order);
+    }
+
+    /**
+     * Aplica la misma transición a varias órdenes con un único UPDATE. Primero se bloquean las filas pedidas
+     * (SELECT ... FOR UPDATE) para saber con certeza qué pasó con cada una.
+     */
+    public BulkTransitionResultDto transitionAll(OrderTransition transition, Collection<Long> ids) {
+        if (transition == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "transition is mandatory");
+        }
+        if (ids == null || ids.stream().anyMatch(Objects::isNull)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids is mandatory and cannot contain null");
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.size() > MAX_BULK_TRANSITION) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BULK_TRANSITION + " orders per bulk transition");
+        }
+        // Las entidades quedan desasociadas tras el UPDATE y conservan el estado previo
+        Map<Long, ProductionOrder> before = new HashMap<>();
+        if (!requested.isEmpty()) {
+            for (ProductionOrder order : repository.lockAllById(requested)) {
+                before.put(order.getId(), order);
+            }
+        }
+
+        List<Long> eligible = new ArrayList<>();
+        before.forEach((id, order) -> {
+            if (order.getStatusId() != null && statusRegistry.canApply(order.getStatusId(), transition)) {
+                eligible.add(id);
+            }
+        });
+        int applied = eligible.isEmpty() ? 0 : apply(eligible, transition);
+
+        List<BulkTransitionResultDto.Outcome> outcomes = new ArrayList<>(requested.size());
+        for (Long id : requested) {
+            ProductionOrder order = before.get(id);
+            Short status = order != null ? order.getStatusId() : null;
+            if (order == null) {
+                outcomes.add(new BulkTransitionResultDto.Outcome(id, BulkTransitionResultDto.Result.NOT_FOUND, null));
+            } else if (status != null && statusRegistry.canApply(status, transition)) {
+                short target = statusRegistry.target(status, transition);
+                outcomes.add(new BulkTransitionResultDto.Outcome(id, BulkTransitionResultDto.Result.APPLIED, target));
+                record(order, ProductionOrderEvent.Type.STATUS_CHANGED, status, target, transition.name() + " (bulk)");
+            } else {
+                outcomes.add(new BulkTransitionResultDto.Outcome(id, BulkTransitionResultDto.Result.WRONG_STATE, status));
+            }
+        }
+        return new BulkTransitionResultDto(transition, applied, outcomes);
+    }
+
+    private int apply(Collection<Long> ids, OrderTransition transition) {
+        short from = statusRegistry.from(transition);
+        short to = statusRegistry.to(transition);
+        return transition == OrderTransition.CONFIRM
+                ? repository.confirm(ids, from, to, "ORD-" + Year.now() + "-")
+                : repository.transitionStatus(ids, from, to);
+    }
+
+    // Después del commit va a production_order_events (OrderEventLog) y al stream SSE; con rollback no sale nada
+    private void record(ProductionOrder order, ProductionOrderEvent.Type type, Short fromStatus, Short toStatus, String details) {
+        eventPublisher.publishEvent(OrderEventLog.event(order, type, fromStatus, toStatus, details));
+    }
+
+    // Sólo espacios, tabs o saltos de línea se guarda vacío: así confirm() lo reconoce y lo completa
+    private static String orderNumber(String value) {
+        return value != null && value.isBlank() ? "" : value;
+    }
+
+    private void checkStatus(Short statusId) {
+        if (statusId != null && !statusRegistry.exists(statusId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown statusId " + statusId);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ProductionOrderSummaryDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Caché de summaries por id de orden, para las pantallas de planta que consultan /summary constantemente.
+ * Expone "cache.*{cache=orderSummary}" y el hit ratio en "orders.summary.cache.hit.ratio".
+ *
+ * <p>Cada summary lleva la versión de la orden con la que se calculó y sólo se sirve si coincide con la versión
+ * actual: un summary calculado con ítems viejos y guardado después de la invalidación nunca sale con la versión
+ * nueva. Quien modifique los ítems de una orden igual llama a {@link #evict(Long)} para liberar la entrada; se
+ * invalida en el momento y otra vez al terminar la transacción.</p>
+ */
+@Service
+public class ProductionOrderSummaryCache {
+    public static final String CACHE_NAME = "orderSummary";
+
+    private final Cache<Long, ProductionOrderSummaryDto> summaries;
+
+    public ProductionOrderSummaryCache(
+            MeterRegistry meterRegistry,
+            @Value("${orders.summary-cache.ttl:10m}") Duration ttl,
+            @Value("${orders.summary-cache.max-size:10000}") long maxSize
+    ) {
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, summaries, CACHE_NAME);
+        Gauge.builder("orders.summary.cache.hit.ratio", summaries, cache -> cache.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el summary cacheado si se calculó con {@code version}; si no, lo calcula con {@code loader}.
+     * Si {@code loader} lanza, no se cachea nada.
+     */
+    public ProductionOrderSummaryDto get(Long orderId, long version, Function<Long, ProductionOrderSummaryDto> loader) {
+        ProductionOrderSummaryDto cached = summaries.getIfPresent(orderId);
+        if (cached != null && Objects.equals(cached.getVersion(), version)) {
+            return cached;
+        }
+        ProductionOrderSummaryDto computed = loader.apply(orderId);
+        // Entre dos cálculos concurrentes queda el de versión más nueva
+        summaries.asMap().merge(orderId, computed, (current, candidate) -> isNewer(candidate, current) ? candidate : current);
+        return computed;
+    }
+
+    private static boolean isNewer(ProductionOrderSummaryDto candidate, ProductionOrderSummaryDto current) {
+        return current.getVersion() == null
+                || candidate.getVersion() != null && candidate.getVersion() >= current.getVersion();
+    }
+
+    public void evict(Long orderId) {
+        summaries.invalidate(orderId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    summaries.invalidate(orderId);
+                }
+            });
+        }
+    }
+}
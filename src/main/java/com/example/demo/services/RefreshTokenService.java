@@ -0,0 +1,138 @@
+package com.example.demo.services;
+
+import com.example.demo.model.RefreshToken;
+import com.example.demo.model.User;
+import com.example.demo.repositories.RefreshTokenRepository;
+import com.example.demo.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Refresh tokens opacos y de un solo uso: cada refresh devuelve un par nuevo y revoca el anterior.
+ * Reutilizar un refresh token ya rotado se trata como robo y revoca todas las sesiones del usuario.
+ */
+@Service
+public class RefreshTokenService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TokenVersionService tokenVersionService;
+    private final TokenRevocationService tokenRevocationService;
+    private final JwtService jwtService;
+    private final long refreshExpiration;
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            UserRepository userRepository,
+            TokenVersionService tokenVersionService,
+            TokenRevocationService tokenRevocationService,
+            JwtService jwtService,
+            @Value("${security.jwt.refresh-expiration-time:1209600000}") long refreshExpiration
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenVersionService = tokenVersionService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.jwtService = jwtService;
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    @Transactional
+    public String issue(User user) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .userId(user.getId())
+                .tokenHash(hash(token))
+                .expiresAt(Instant.now().plusMillis(refreshExpiration))
+                .build());
+        return token;
+    }
+
+    /** Canjea un refresh token válido por uno nuevo, sin pasar por el password encoder. */
+    @Transactional(noRollbackFor = RuntimeException.class)
+    public Rotation rotate(String token) {
+        String tokenHash = hash(token);
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(tokenHash)
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+        if (stored.isRevoked()) {
+            throw reused(stored);
+        }
+        if (stored.getExpiresAt().isBefore(Instant.now())) {
+            throw new RuntimeException("Refresh token has expired");
+        }
+        User user = userRepository.findById(stored.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!user.isEnabled()) {
+            throw new RuntimeException("Account not verified. Please verify your account.");
+        }
+        // Revocación condicional: de dos refresh concurrentes con el mismo token sólo uno actualiza la fila
+        if (refreshTokenRepository.revokeIfActive(tokenHash) == 0) {
+            throw reused(stored);
+        }
+        return new Rotation(user, issue(user));
+    }
+
+    private RuntimeException reused(RefreshToken stored) {
+        revokeAll(stored.getUserId());
+        return new RuntimeException("Refresh token already used");
+    }
+
+    /**
+     * Revoca el access token (por jti) y, si viene y es del mismo usuario, el refresh token.
+     * Con allDevices además invalida todas las sesiones del usuario.
+     */
+    @Transactional
+    public void logout(String accessToken, String refreshToken, boolean allDevices) {
+        VerifiedToken claims = jwtService.verifyToken(accessToken);
+        tokenRevocationService.revoke(claims.id(), claims.expiration());
+        Long userId = claims.userId();
+        if (refreshToken != null && userId != null) {
+            refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                    .filter(stored -> userId.equals(stored.getUserId()))
+                    .ifPresent(stored -> {
+                        stored.setRevoked(true);
+                        refreshTokenRepository.save(stored);
+                    });
+        }
+        if (allDevices && userId != null) {
+            revokeAll(userId);
+        }
+    }
+
+    /** Cierra todas las sesiones: refresh tokens revocados y access tokens invalidados por versión. */
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+        tokenVersionService.revokeAll(userId);
+    }
+
+    @Scheduled(cron = "${security.jwt.refresh-cleanup-cron:0 30 3 * * *}")
+    @Transactional
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(Instant.now());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.services;
+
+import com.example.demo.model.RevokedToken;
+import com.example.demo.repositories.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocación de access tokens por jti, consultada en O(1) desde el filtro JWT.
+ *
+ * <p>Un Bloom filter descarta casi todos los tokens sin revocar sin tocar el mapa exacto; sólo los
+ * positivos se confirman contra el conjunto de jti revocados. Cada entrada vive hasta el "exp" del token.
+ * Las revocaciones se persisten en revoked_tokens: al arrancar se recarga el conjunto y, periódicamente,
+ * se incorporan las revocaciones hechas por otros nodos.</p>
+ */
+@Service
+public class TokenRevocationService {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedRevocations;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            @Value("${security.jwt.revocation.expected-size:10000}") long expectedRevocations
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.bloomFilter = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @Transactional
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt.isBefore(Instant.now())) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .expiresAt(expiresAt)
+                .revokedAt(Instant.now())
+                .build());
+        remember(jti, expiresAt.toEpochMilli());
+    }
+
+    /**
+     * Trae las revocaciones persistidas desde la última sincronización (todas, en el primer llamado)
+     * y purga las vencidas, reconstruyendo el Bloom filter sin ellas.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${security.jwt.revocation.sync-interval:30s}")
+    @Transactional
+    public void sync() {
+        Instant now = Instant.now();
+        Instant since = lastSync;
+        lastSync = now;
+        for (RevokedToken token : revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(since.minusSeconds(5), now)) {
+            remember(token.getJti(), token.getExpiresAt().toEpochMilli());
+        }
+        long nowMillis = now.toEpochMilli();
+        if (revoked.values().removeIf(expiresAt -> expiresAt <= nowMillis)) {
+            rebuildBloomFilter();
+        }
+        revokedTokenRepository.deleteExpired(now);
+    }
+
+    private synchronized void remember(String jti, long expiresAtMillis) {
+        revoked.put(jti, expiresAtMillis);
+        bloomFilter.put(jti);
+    }
+
+    private synchronized void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.size() * 2L), FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+/**
+ * Versión de tokens por usuario, servida desde memoria.
+ * Un token sólo es aceptado si su claim "ver" coincide con la versión vigente del usuario.
+ */
+@Service
+public class TokenVersionService {
+    private static final int UNKNOWN_USER = -1;
+
+    private final UserRepository userRepository;
+    private final CachingUserDetailsService userDetailsService;
+    private final Cache<Long, Integer> versions;
+
+    public TokenVersionService(
+            UserRepository userRepository,
+            CachingUserDetailsService userDetailsService,
+            @Value("${security.jwt.token-version-cache.ttl:30s}") Duration ttl,
+            @Value("${security.jwt.token-version-cache.max-size:100000}") long maxSize
+    ) {
+        this.userRepository = userRepository;
+        this.userDetailsService = userDetailsService;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public int currentVersion(Long userId) {
+        return versions.get(userId, id -> userRepository.findTokenVersionById(id).orElse(UNKNOWN_USER));
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return currentVersion(userId) == tokenVersion;
+    }
+
+    /** Invalida todos los tokens emitidos hasta ahora para el usuario. */
+    @Transactional
+    public void revokeAll(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        versions.invalidate(userId);
+        userDetailsService.evictById(userId);
+    }
+}
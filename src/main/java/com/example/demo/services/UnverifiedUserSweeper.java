@@ -0,0 +1,96 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Borra las cuentas que nunca se verificaron y cuyo plazo de verificación venció hace más de {@code retention}.
+ *
+ * <p>Recorre app_users por lotes acotados con keyset sobre el id y borra cada lote en su propia transacción
+ * corta, así nunca retiene locks sobre muchas filas ni hace un único DELETE gigante.</p>
+ */
+@Service
+public class UnverifiedUserSweeper {
+    private static final Logger log = LoggerFactory.getLogger(UnverifiedUserSweeper.class);
+
+    private final UserRepository userRepository;
+    private final CachingUserDetailsService userDetailsService;
+    private final VerificationCodeStore verificationCodeStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final Counter purged;
+    private final Timer duration;
+
+    public UnverifiedUserSweeper(
+            UserRepository userRepository,
+            CachingUserDetailsService userDetailsService,
+            VerificationCodeStore verificationCodeStore,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${security.unverified-users.retention:7d}") Duration retention,
+            @Value("${security.unverified-users.batch-size:500}") int batchSize
+    ) {
+        this.userRepository = userRepository;
+        this.userDetailsService = userDetailsService;
+        this.verificationCodeStore = verificationCodeStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.purged = Counter.builder("users.unverified.purged").register(meterRegistry);
+        this.duration = Timer.builder("users.unverified.sweep.duration").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${security.unverified-users.sweep-interval:1h}",
+            fixedDelayString = "${security.unverified-users.sweep-interval:1h}")
+    public void sweep() {
+        try {
+            long deleted = duration.recordCallable(this::sweepOnce);
+            if (deleted > 0) {
+                log.info("Purged {} unverified users", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Unverified user sweep failed", e);
+        }
+    }
+
+    /** Devuelve la cantidad de usuarios borrados en esta pasada. */
+    long sweepOnce() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long total = 0;
+        long afterId = 0;
+        while (true) {
+            List<UserRepository.StaleUser> batch = userRepository.findStaleUnverified(cutoff, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return total;
+            }
+            List<Long> ids = batch.stream().map(UserRepository.StaleUser::getId).toList();
+            Integer deleted = transactionTemplate.execute(status -> userRepository.deleteStaleUnverified(ids, cutoff));
+            batch.forEach(user -> {
+                userDetailsService.evict(user.getEmail());
+                verificationCodeStore.remove(user.getEmail());
+            });
+            int count = deleted != null ? deleted : 0;
+            purged.increment(count);
+            total += count;
+            afterId = ids.get(ids.size() - 1);
+            if (batch.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+}
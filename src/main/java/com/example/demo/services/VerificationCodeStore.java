@@ -0,0 +1,27 @@
+package com.example.demo.services;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Códigos de verificación pendientes, por email.
+ *
+ * <p>Se elige la implementación con {@code security.verification.store}: {@code memory} (un solo nodo,
+ * expiración con timing wheel) o {@code database} (tabla verification_codes, compartida entre nodos).</p>
+ */
+public interface VerificationCodeStore {
+
+    /** Guarda (o reemplaza) el código del email hasta {@code expiresAt}. */
+    void put(String email, String code, Instant expiresAt);
+
+    /** Puede devolver un código ya vencido que todavía no se reclamó; el llamador compara contra expiresAt. */
+    Optional<StoredCode> find(String email);
+
+    void remove(String email);
+
+    record StoredCode(String code, Instant expiresAt) {
+        public boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+}
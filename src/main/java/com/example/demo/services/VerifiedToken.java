@@ -0,0 +1,40 @@
+package com.example.demo.services;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Vista inmutable de un JWT ya verificado, con sólo los claims que usan el filtro y el logout.
+ * La misma instancia se comparte entre requests desde la caché de {@link JwtService}.
+ */
+public record VerifiedToken(
+        String subject,
+        String id,
+        Instant expiration,
+        Long userId,
+        String email,
+        Boolean enabled,
+        List<String> authorities,
+        Integer tokenVersion
+) {
+    static VerifiedToken from(Claims claims) {
+        Date expiration = claims.getExpiration();
+        List<?> authorities = claims.get(JwtService.CLAIM_AUTHORITIES, List.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getId(),
+                expiration != null ? expiration.toInstant() : null,
+                claims.get(JwtService.CLAIM_USER_ID, Long.class),
+                claims.get(JwtService.CLAIM_EMAIL, String.class),
+                claims.get(JwtService.CLAIM_ENABLED, Boolean.class),
+                authorities != null
+                        ? authorities.stream().filter(Objects::nonNull).map(String::valueOf).toList()
+                        : null,
+                claims.get(JwtService.CLAIM_TOKEN_VERSION, Integer.class)
+        );
+    }
+}
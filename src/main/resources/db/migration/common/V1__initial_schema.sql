@@ -0,0 +1,110 @@
+-- Esquema tal como lo venía generando Hibernate con ddl-auto=update.
+-- IF NOT EXISTS: en bases existentes (baseline 0) sólo crea lo que falte.
+
+create table if not exists app_users (
+    id bigint generated by default as identity,
+    username varchar(255) not null unique,
+    email varchar(255) not null unique,
+    password varchar(255) not null,
+    enabled boolean not null,
+    verification_expiration timestamp(6),
+    token_version integer default 0 not null,
+    primary key (id)
+);
+
+create table if not exists customers (
+    id bigint generated by default as identity,
+    customer_uuid uuid,
+    name varchar(255) not null,
+    address varchar(255),
+    email varchar(255) unique,
+    phone varchar(255),
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create table if not exists inventory_items (
+    id bigint not null,
+    product_id varchar(255),
+    name varchar(255),
+    category varchar(255),
+    current_stock integer not null,
+    min_stock integer not null,
+    unit varchar(255),
+    supplier varchar(255),
+    last_order_date date,
+    primary key (id)
+);
+
+create table if not exists order_status (
+    status_id smallint not null,
+    code varchar(255) not null unique,
+    description varchar(255),
+    primary key (status_id)
+);
+
+create table if not exists production_orders (
+    id bigint generated by default as identity,
+    order_uuid uuid not null unique,
+    order_number varchar(255) not null,
+    customer_id bigint not null,
+    team_id bigint,
+    status_id smallint,
+    start_date date,
+    end_date date,
+    notes varchar(255),
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create table if not exists production_order_items (
+    id bigint generated by default as identity,
+    order_id bigint not null,
+    product_type varchar(255) not null,
+    width_mm integer not null,
+    height_mm integer not null,
+    quantity integer not null,
+    profile_id bigint,
+    glass_type_id bigint,
+    hardware_kit_id bigint,
+    notes varchar(255),
+    created_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create table if not exists refresh_tokens (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    token_hash varchar(64) not null unique,
+    expires_at timestamp(6) with time zone not null,
+    revoked boolean not null,
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create table if not exists revoked_tokens (
+    jti varchar(36) not null,
+    expires_at timestamp(6) with time zone not null,
+    revoked_at timestamp(6) with time zone not null,
+    primary key (jti)
+);
+
+create table if not exists verification_codes (
+    email varchar(255) not null,
+    code varchar(16) not null,
+    expires_at timestamp(6) with time zone not null,
+    primary key (email)
+);
+
+create table if not exists email_outbox (
+    id bigint generated by default as identity,
+    recipient varchar(255) not null,
+    subject varchar(255) not null,
+    body text not null,
+    status varchar(16) not null check (status in ('PENDING', 'FAILED')),
+    attempts integer not null,
+    next_attempt_at timestamp(6) with time zone not null,
+    last_error varchar(1000),
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
@@ -0,0 +1,12 @@
+-- Bases creadas por ddl-auto antes de token_version y del VerificationCodeStore
+alter table app_users add column if not exists token_version integer default 0 not null;
+-- Los códigos pendientes pasan a verification_codes antes de borrar la columna vieja.
+-- En bases nuevas la columna no existe: se agrega vacía para que el insert sea válido en todos los casos.
+alter table app_users add column if not exists verification_code varchar(255);
+insert into verification_codes (email, code, expires_at)
+select u.email, u.verification_code, u.verification_expiration
+from app_users u
+where u.verification_code is not null
+  and u.verification_expiration is not null
+  and not exists (select 1 from verification_codes v where v.email = u.email);
+alter table app_users drop column if exists verification_code;
@@ -0,0 +1,19 @@
+-- Ítems por orden (getItems, summary, addItems)
+create index if not exists idx_production_order_items_order_id on production_order_items (order_id);
+
+-- Keyset de GET /auth/orders; cada filtro de igualdad como prefijo (cubre status_id y customer_id sueltos)
+create index if not exists idx_production_orders_created_id on production_orders (created_at, id);
+create index if not exists idx_production_orders_status_created_id on production_orders (status_id, created_at, id);
+create index if not exists idx_production_orders_customer_created_id on production_orders (customer_id, created_at, id);
+create index if not exists idx_production_orders_team_created_id on production_orders (team_id, created_at, id);
+create index if not exists idx_production_orders_start_date on production_orders (start_date);
+create index if not exists idx_production_orders_end_date on production_orders (end_date);
+
+create unique index if not exists idx_customers_customer_uuid on customers (customer_uuid);
+create index if not exists idx_inventory_items_category on inventory_items (category);
+
+create index if not exists idx_app_users_verification_expiration on app_users (verification_expiration);
+create index if not exists idx_verification_codes_expires_at on verification_codes (expires_at);
+create index if not exists idx_email_outbox_status_next_attempt on email_outbox (status, next_attempt_at);
+create index if not exists idx_refresh_tokens_user_id on refresh_tokens (user_id);
+create index if not exists idx_revoked_tokens_revoked_at on revoked_tokens (revoked_at);
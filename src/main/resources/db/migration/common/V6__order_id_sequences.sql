@@ -0,0 +1,4 @@
+-- Ids de órdenes e ítems por secuencia (allocationSize = 50 en las entidades, optimizador pooled).
+-- Las columnas identity quedan como están; Hibernate siempre manda el id explícito.
+create sequence if not exists production_orders_seq start with 1 increment by 50;
+create sequence if not exists production_order_items_seq start with 1 increment by 50;
@@ -0,0 +1,2 @@
+-- Versión para optimistic locking de ProductionOrder (@Version); las filas existentes arrancan en 0.
+alter table production_orders add column if not exists version bigint default 0 not null;
@@ -0,0 +1,15 @@
+-- Historial append-only de las órdenes: alta, cambios, ítems y transiciones, con fecha y usuario.
+-- Sin FK a production_orders: el historial sobrevive al borrado de la orden.
+create table if not exists production_order_events (
+    id bigint generated by default as identity,
+    order_id bigint not null,
+    event_type varchar(32) not null,
+    from_status smallint,
+    to_status smallint,
+    actor varchar(255),
+    occurred_at timestamp(6) with time zone not null,
+    details varchar(255),
+    primary key (id)
+);
+
+create index if not exists idx_production_order_events_order on production_order_events (order_id, occurred_at, id);
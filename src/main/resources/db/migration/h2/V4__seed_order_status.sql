@@ -0,0 +1,5 @@
+merge into order_status (status_id, code, description) key (status_id) values
+    (1, 'IN_PROGRESS', 'En producción'),
+    (2, 'SCHEDULED', 'Programada'),
+    (3, 'FOR_DELIVERY', 'Lista para entregar'),
+    (4, 'COMPLETED', 'Entregada');
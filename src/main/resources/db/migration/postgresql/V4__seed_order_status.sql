@@ -0,0 +1,6 @@
+insert into order_status (status_id, code, description) values
+    (1, 'IN_PROGRESS', 'En producción'),
+    (2, 'SCHEDULED', 'Programada'),
+    (3, 'FOR_DELIVERY', 'Lista para entregar'),
+    (4, 'COMPLETED', 'Entregada')
+on conflict do nothing;
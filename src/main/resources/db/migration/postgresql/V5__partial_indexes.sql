@@ -0,0 +1,12 @@
+-- Sólo órdenes abiertas (todo menos COMPLETED): son las que se listan y planifican a diario,
+-- y quedan chicas aunque el histórico crezca. H2 no soporta índices parciales.
+create index if not exists idx_production_orders_open_created_id
+    on production_orders (created_at, id) where status_id <> 4;
+
+-- Sólo la cola viva del outbox
+create index if not exists idx_email_outbox_pending
+    on email_outbox (next_attempt_at, id) where status = 'PENDING';
+
+-- Cuentas sin verificar, que es lo único que recorre el sweeper
+create index if not exists idx_app_users_unverified
+    on app_users (verification_expiration, id) where enabled = false;
@@ -0,0 +1,4 @@
+-- Con pooled, nextval = N reserva (N-49 .. N]: dejamos la secuencia 50 por encima del máximo
+-- para que el primer bloque no choque con ids generados antes por identity.
+select setval('production_orders_seq', coalesce((select max(id) from production_orders), 0) + 50);
+select setval('production_order_items_seq', coalesce((select max(id) from production_order_items), 0) + 50);
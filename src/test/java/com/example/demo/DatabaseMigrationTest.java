@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import com.example.demo.model.OrderStatus;
+import com.example.demo.repositories.OrderStatusRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Usa la URL de application-test.properties (H2 en modo PostgreSQL) en lugar de la base embebida por defecto;
+// ddl-auto=validate hace que Hibernate falle si las entidades no coinciden con lo que dejaron las migraciones
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DatabaseMigrationTest {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private OrderStatusRepository orderStatusRepository;
+
+	@Test
+	void migrations_shouldApplyCleanlyAndSeedOrderStatuses() {
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(flyway.info().applied()).isNotEmpty();
+
+		assertThat(orderStatusRepository.findAll())
+			.extracting(OrderStatus::getCode)
+			.containsExactlyInAnyOrder("IN_PROGRESS", "SCHEDULED", "FOR_DELIVERY", "COMPLETED");
+	}
+
+	@Test
+	void migrations_shouldCreateHotPathIndexes() {
+		var indexes = jdbcTemplate.queryForList(
+			"select lower(index_name) from information_schema.indexes", String.class);
+
+		assertThat(indexes).contains(
+			"idx_production_order_items_order_id",
+			"idx_production_orders_status_created_id",
+			"idx_production_orders_customer_created_id",
+			"idx_customers_customer_uuid",
+			"idx_inventory_items_category");
+	}
+
+	@Test
+	void migrations_shouldMovePendingCodesOfLegacyDatabasesToVerificationCodes() {
+		// Base creada por ddl-auto=update antes de Flyway, con el código todavía en app_users
+		DriverManagerDataSource legacy = new DriverManagerDataSource(
+			"jdbc:h2:mem:legacy_upgrade;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate legacyJdbc = new JdbcTemplate(legacy);
+		legacyJdbc.execute("create table app_users (id bigint generated by default as identity, "
+			+ "username varchar(255) not null unique, email varchar(255) not null unique, password varchar(255) not null, "
+			+ "enabled boolean not null, verification_code varchar(255), verification_expiration timestamp(6), primary key (id))");
+		legacyJdbc.update("insert into app_users (username, email, password, enabled, verification_code, verification_expiration) "
+			+ "values ('juan', 'juan@example.com', 'encoded', false, '123456', timestamp '2099-01-01 00:00:00')");
+
+		Flyway.configure()
+			.dataSource(legacy)
+			.locations("classpath:db/migration/common", "classpath:db/migration/h2")
+			.baselineOnMigrate(true)
+			.baselineVersion("0")
+			.load()
+			.migrate();
+
+		assertThat(legacyJdbc.queryForObject(
+			"select code from verification_codes where email = 'juan@example.com'", String.class)).isEqualTo("123456");
+		assertThat(legacyJdbc.queryForObject(
+			"select count(*) from information_schema.columns where lower(table_name) = 'app_users' "
+				+ "and lower(column_name) = 'verification_code'", Integer.class)).isZero();
+	}
+}
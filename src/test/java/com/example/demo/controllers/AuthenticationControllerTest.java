@@ -7,18 +7,28 @@ import com.example.demo.dto.VerifyUserDto;
 import com.example.demo.model.User;
 import com.example.demo.services.AuthenticationService;
 import com.example.demo.services.JwtService;
+import com.example.demo.services.LoginRateLimiter;
+import com.example.demo.services.RefreshTokenService;
+import com.example.demo.services.TokenRevocationService;
+import com.example.demo.services.TokenVersionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,9 +46,21 @@ public class AuthenticationControllerTest {
   @MockitoBean
   private JwtService jwtService;
 
+  @MockitoBean
+  private TokenVersionService tokenVersionService;
+
+  @MockitoBean
+  private TokenRevocationService tokenRevocationService;
+
   @MockitoBean
   private AuthenticationService authenticationService;
 
+  @MockitoBean
+  private LoginRateLimiter rateLimiter;
+
+  @MockitoBean
+  private RefreshTokenService refreshTokenService;
+
   @Test
   void register_shouldReturnOkAndUser() throws Exception{
     RegisterUserDto dto = new RegisterUserDto();
@@ -66,13 +88,52 @@ public class AuthenticationControllerTest {
     when(authenticationService.authenticate(any(LoginUserDto.class))).thenReturn(user);
     when(jwtService.generateToken(user)).thenReturn("token-123");
     when(jwtService.getExpirationTime()).thenReturn(3600000L);
+    when(refreshTokenService.issue(user)).thenReturn("refresh-123");
 
     mockMvc.perform(post("/auth/login")
         .contentType(MediaType.APPLICATION_JSON)
         .content(objectMapper.writeValueAsString(dto)))
       .andExpect(status().isOk())
       .andExpect(jsonPath("$.token").value("token-123"))
-      .andExpect(jsonPath("$.expiresIn").value(3600000));
+      .andExpect(jsonPath("$.expiresIn").value(3600000))
+      .andExpect(jsonPath("$.refreshToken").value("refresh-123"));
+  }
+
+  @Test
+  void refresh_shouldRotateTokenAndReturnNewPair() throws Exception {
+    User user = new User("juan", "juan@example.com", "encoded");
+    when(refreshTokenService.rotate("refresh-123")).thenReturn(new RefreshTokenService.Rotation(user, "refresh-456"));
+    when(jwtService.generateToken(user)).thenReturn("token-456");
+    when(jwtService.getExpirationTime()).thenReturn(3600000L);
+
+    mockMvc.perform(post("/auth/refresh")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"refreshToken\":\"refresh-123\"}"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.token").value("token-456"))
+      .andExpect(jsonPath("$.refreshToken").value("refresh-456"));
+  }
+
+  @Test
+  void refresh_shouldReturnUnauthorized_whenTokenIsInvalid() throws Exception {
+    when(refreshTokenService.rotate("reused")).thenThrow(new RuntimeException("Refresh token reused"));
+
+    mockMvc.perform(post("/auth/refresh")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"refreshToken\":\"reused\"}"))
+      .andExpect(status().isUnauthorized())
+      .andExpect(content().string("Refresh token reused"));
+  }
+
+  @Test
+  void logout_shouldRevokeAccessAndRefreshToken() throws Exception {
+    mockMvc.perform(post("/auth/logout")
+        .header("Authorization", "Bearer token-123")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"refreshToken\":\"refresh-123\"}"))
+      .andExpect(status().isNoContent());
+
+    verify(refreshTokenService).logout("token-123", "refresh-123", false);
   }
 
   @Test
@@ -115,4 +176,22 @@ public class AuthenticationControllerTest {
       .andExpect(status().isBadRequest())
       .andExpect(content().string("User not found"));
   }
+
+  @Test
+  void login_shouldReturnTooManyRequests_whenRateLimited() throws Exception {
+    LoginUserDto dto = new LoginUserDto();
+    dto.setEmail("juan@example.com");
+    dto.setPassword("123456");
+
+    doThrow(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many attempts, please retry later"))
+      .when(rateLimiter).acquire(anyString(), eq("juan@example.com"));
+
+    mockMvc.perform(post("/auth/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(dto)))
+      .andExpect(status().isTooManyRequests())
+      .andExpect(header().exists("Retry-After"));
+
+    verifyNoInteractions(authenticationService);
+  }
 }
@@ -4,6 +4,8 @@ import com.example.demo.controller.CustomerController;
 import com.example.demo.dto.CustomerDto;
 import com.example.demo.services.CustomerService;
 import com.example.demo.services.JwtService;
+import com.example.demo.services.TokenRevocationService;
+import com.example.demo.services.TokenVersionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +40,12 @@ class CustomerControllerTest {
   @MockitoBean
   private JwtService jwtService;
 
+  @MockitoBean
+  private TokenVersionService tokenVersionService;
+
+  @MockitoBean
+  private TokenRevocationService tokenRevocationService;
+
   @MockitoBean
   private CustomerService customerService;
 
@@ -0,0 +1,98 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.model.ProductionOrderEvent;
+import com.example.demo.model.User;
+import com.example.demo.repositories.ProductionOrderEventRepository;
+import com.example.demo.repositories.ProductionOrderRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.JwtService;
+import com.example.demo.services.OrderEventLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Historial de órdenes con la cadena de seguridad real: el actor sale del token Bearer. */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ProductionOrderActorTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @Autowired
+  private OrderEventLog eventLog;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private ProductionOrderRepository orderRepository;
+
+  @Autowired
+  private ProductionOrderEventRepository eventRepository;
+
+  @AfterEach
+  void cleanUp() {
+    eventRepository.deleteAll();
+    orderRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void create_shouldRecordTheTokenUserAsActor() throws Exception {
+    // El filtro busca el subject por email: la cuenta usa el email como username
+    User user = new User("ana@example.com", "ana@example.com", "encoded");
+    user.setEnabled(true);
+    user = userRepository.save(user);
+    String token = jwtService.generateToken(user);
+
+    Long orderId = createOrder(post("/auth/orders").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+
+    assertThat(eventLog.timeline(orderId))
+      .extracting(ProductionOrderEvent::getActor).containsExactly("ana@example.com");
+  }
+
+  @Test
+  void create_shouldRecordNoActorForAnonymousRequests() throws Exception {
+    Long orderId = createOrder(post("/auth/orders"));
+
+    assertThat(eventLog.timeline(orderId)).extracting(ProductionOrderEvent::getActor).containsOnlyNulls();
+  }
+
+  @Test
+  void create_shouldStayPublicWhenTheTokenIsInvalid() throws Exception {
+    Long orderId = createOrder(post("/auth/orders").header(HttpHeaders.AUTHORIZATION, "Bearer not-a-jwt"));
+
+    assertThat(eventLog.timeline(orderId)).extracting(ProductionOrderEvent::getActor).containsOnlyNulls();
+  }
+
+  private Long createOrder(MockHttpServletRequestBuilder request) throws Exception {
+    ProductionOrderDto input = new ProductionOrderDto();
+    input.setOrderNumber("ORD-ACTOR");
+    input.setCustomerId(10L);
+    String body = mockMvc.perform(request
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(input)))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(body, ProductionOrderDto.class).getId();
+  }
+}
@@ -2,30 +2,49 @@ package com.example.demo.controllers;
 
 import com.example.demo.controller.ProductionOrderController;
 import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.dto.ProductionOrderPage;
 import com.example.demo.dto.ProductionOrderItemDto;
+import com.example.demo.dto.ProductionOrderItemsPatchDto;
 import com.example.demo.dto.ProductionOrderSummaryDto;
 import com.example.demo.model.ProductionOrderItem;
 import com.example.demo.services.JwtService;
+import com.example.demo.services.TokenRevocationService;
+import com.example.demo.services.TokenVersionService;
+import com.example.demo.dto.BulkTransitionResultDto;
+import com.example.demo.model.ProductionOrderEvent;
+import com.example.demo.services.OrderChangeBroadcaster;
+import com.example.demo.services.OrderEventLog;
+import com.example.demo.services.OrderStatusConflictException;
+import com.example.demo.services.OrderTransition;
 import com.example.demo.services.ProductionOrderService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,9 +67,21 @@ public class ProductionOrderControllerTest {
   @MockitoBean
   private ProductionOrderService service;
 
+  @MockitoBean
+  private OrderEventLog eventLog;
+
+  @MockitoBean
+  private OrderChangeBroadcaster changeBroadcaster;
+
   @MockitoBean
   private JwtService jwtService;
 
+  @MockitoBean
+  private TokenVersionService tokenVersionService;
+
+  @MockitoBean
+  private TokenRevocationService tokenRevocationService;
+
   @Test
   void create_shouldReturnOkAndOrder() throws Exception {
     ProductionOrderDto input = ProductionOrderDto.builder()
@@ -95,16 +126,47 @@ public class ProductionOrderControllerTest {
       .customerId(11L)
       .build();
 
-    when(service.getAll()).thenReturn(List.of(order1, order2));
+    when(service.getPage(any(ProductionOrderFilter.class), isNull(), isNull()))
+      .thenReturn(new ProductionOrderPage(List.of(order1, order2), null));
 
     mockMvc.perform(get("/auth/orders"))
       .andExpect(status().isOk())
+      .andExpect(header().doesNotExist("X-Next-Cursor"))
       .andExpect(jsonPath("$[0].id").value(1))
       .andExpect(jsonPath("$[0].orderNumber").value("ORD-1"))
       .andExpect(jsonPath("$[1].id").value(2))
       .andExpect(jsonPath("$[1].orderNumber").value("ORD-2"));
   }
 
+  @Test
+  void getAll_shouldPassFiltersAndCursorAndExposeNextCursor() throws Exception {
+    ProductionOrderDto order = ProductionOrderDto.builder()
+      .id(3L)
+      .orderNumber("ORD-3")
+      .customerId(10L)
+      .build();
+
+    when(service.getPage(any(ProductionOrderFilter.class), eq("abc"), eq(1)))
+      .thenReturn(new ProductionOrderPage(List.of(order), "def"));
+
+    mockMvc.perform(get("/auth/orders")
+            .param("statusId", "2")
+            .param("customerId", "10")
+            .param("startFrom", "2026-01-01")
+            .param("cursor", "abc")
+            .param("limit", "1"))
+      .andExpect(status().isOk())
+      .andExpect(header().string("X-Next-Cursor", "def"))
+      .andExpect(jsonPath("$[0].id").value(3));
+
+    ArgumentCaptor<ProductionOrderFilter> captor = ArgumentCaptor.forClass(ProductionOrderFilter.class);
+    verify(service).getPage(captor.capture(), eq("abc"), eq(1));
+    assertThat(captor.getValue().getStatusId()).isEqualTo((short) 2);
+    assertThat(captor.getValue().getCustomerId()).isEqualTo(10L);
+    assertThat(captor.getValue().getStartFrom()).isEqualTo(LocalDate.of(2026, 1, 1));
+    assertThat(captor.getValue().getTeamId()).isNull();
+  }
+
   @Test
   void getById_shouldReturnOrder() throws Exception {
     ProductionOrderDto dto = ProductionOrderDto.builder()
@@ -114,10 +176,13 @@ public class ProductionOrderControllerTest {
       .statusId((short) 2)
       .build();
 
+    when(service.getVersion(7L)).thenReturn(3L);
     when(service.getById(7L)).thenReturn(dto);
 
     mockMvc.perform(get("/auth/orders/7"))
       .andExpect(status().isOk())
+      .andExpect(header().string("ETag", "\"v3\""))
+      .andExpect(header().string("Cache-Control", "no-cache, private"))
       .andExpect(jsonPath("$.id").value(7))
       .andExpect(jsonPath("$.orderNumber").value("ORD-1"))
       .andExpect(jsonPath("$.statusId").value(2));
@@ -125,6 +190,57 @@ public class ProductionOrderControllerTest {
     verify(service).getById(7L);
   }
 
+  @Test
+  void getById_shouldAnswerNotModifiedWithoutLoadingTheOrder() throws Exception {
+    when(service.getVersion(7L)).thenReturn(3L);
+
+    mockMvc.perform(get("/auth/orders/7").header("If-None-Match", "\"v3\""))
+      .andExpect(status().isNotModified())
+      .andExpect(header().string("ETag", "\"v3\""))
+      .andExpect(content().string(""));
+
+    verify(service, never()).getById(7L);
+  }
+
+  @Test
+  void getSummary_shouldAnswerNotModifiedWhileVersionIsUnchanged() throws Exception {
+    when(service.buildSummary(60L)).thenReturn(ProductionOrderSummaryDto.builder().orderId(60L).version(5L).build());
+
+    mockMvc.perform(get("/auth/orders/{id}/summary", 60).header("If-None-Match", "\"v5\""))
+      .andExpect(status().isNotModified());
+    verify(service, never()).getVersion(60L);
+  }
+
+  @Test
+  void getEvents_shouldReturnTimeline() throws Exception {
+    when(eventLog.timeline(7L)).thenReturn(List.of(
+      ProductionOrderEvent.builder().id(1L).orderId(7L).type(ProductionOrderEvent.Type.CREATED)
+        .toStatus((short) 1).actor("ana@example.com").occurredAt(Instant.parse("2026-03-01T10:00:00Z")).build(),
+      ProductionOrderEvent.builder().id(2L).orderId(7L).type(ProductionOrderEvent.Type.STATUS_CHANGED)
+        .fromStatus((short) 1).toStatus((short) 2).details("CONFIRM")
+        .occurredAt(Instant.parse("2026-03-01T11:00:00Z")).build()));
+
+    mockMvc.perform(get("/auth/orders/7/events"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.length()").value(2))
+      .andExpect(jsonPath("$[0].type").value("CREATED"))
+      .andExpect(jsonPath("$[0].actor").value("ana@example.com"))
+      .andExpect(jsonPath("$[1].fromStatus").value(1))
+      .andExpect(jsonPath("$[1].toStatus").value(2));
+  }
+
+  @Test
+  void stream_shouldSubscribeWithFiltersAndStartAsync() throws Exception {
+    when(changeBroadcaster.subscribe(3L, (short) 2)).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/auth/orders/stream").param("teamId", "3").param("statusId", "2")
+        .accept(MediaType.TEXT_EVENT_STREAM))
+      .andExpect(status().isOk())
+      .andExpect(request().asyncStarted());
+
+    verify(changeBroadcaster).subscribe(3L, (short) 2);
+  }
+
   @Test
   void confirm_shouldReturnUpdatedOrder() throws Exception {
     ProductionOrderDto dto = ProductionOrderDto.builder()
@@ -145,6 +261,32 @@ public class ProductionOrderControllerTest {
   verify(service).confirm(7L);
   }
 
+  @Test
+  void transitionAll_shouldReturnPerOrderOutcomes() throws Exception {
+    BulkTransitionResultDto result = new BulkTransitionResultDto(OrderTransition.DELIVER, 1, List.of(
+      new BulkTransitionResultDto.Outcome(7L, BulkTransitionResultDto.Result.APPLIED, (short) 4),
+      new BulkTransitionResultDto.Outcome(8L, BulkTransitionResultDto.Result.NOT_FOUND, null)));
+
+    when(service.transitionAll(OrderTransition.DELIVER, List.of(7L, 8L))).thenReturn(result);
+
+    mockMvc.perform(post("/auth/orders/transitions")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"transition\":\"DELIVER\",\"ids\":[7,8]}"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.applied").value(1))
+      .andExpect(jsonPath("$.outcomes[0].result").value("APPLIED"))
+      .andExpect(jsonPath("$.outcomes[1].result").value("NOT_FOUND"));
+  }
+
+  @Test
+  void confirm_shouldReturnConflictWhenTransitionIsLost() throws Exception {
+    when(service.confirm(7L)).thenThrow(new OrderStatusConflictException((short) 1, (short) 2));
+
+    mockMvc.perform(post("/auth/orders/{id}/confirm", 7))
+      .andExpect(status().isConflict())
+      .andExpect(content().string("Estado inválido. Esperado=1 actual=2"));
+  }
+
 @Test
   void addItem_shouldReturnOkMessage() throws Exception {
 
@@ -173,6 +315,7 @@ public class ProductionOrderControllerTest {
     void getSummary_shouldReturnSummary() throws Exception{
     ProductionOrderSummaryDto summary = ProductionOrderSummaryDto.builder()
       .orderId(60L)
+      .version(4L)
       .items(List.of(
         ProductionOrderSummaryDto.ItemSummary.builder()
           .id(1L)
@@ -196,6 +339,7 @@ public class ProductionOrderControllerTest {
 
     mockMvc.perform(get("/auth/orders/{id}/summary", 60))
       .andExpect(status().isOk())
+      .andExpect(header().string("ETag", "\"v4\""))
       .andExpect(jsonPath("$.orderId").value(60))
       .andExpect(jsonPath("$.items.length()").value(1))
       .andExpect(jsonPath("$.items[0].productType").value("Window"))
@@ -204,6 +348,38 @@ public class ProductionOrderControllerTest {
     verify(service).buildSummary(60L);
   }
 
+  @Test
+  void patchItems_shouldReturnUpsertedItems() throws Exception {
+    ProductionOrderItemDto change = new ProductionOrderItemDto();
+    change.setId(5L);
+    change.setProductType("Window");
+    change.setWidthMm(1500);
+    change.setHeightMm(1200);
+    change.setQuantity(1);
+
+    ProductionOrderItem updated = new ProductionOrderItem();
+    updated.setId(5L);
+    updated.setOrderId(10L);
+    updated.setWidthMm(1500);
+
+    when(service.patchItems(eq(10L), any(ProductionOrderItemsPatchDto.class))).thenReturn(List.of(updated));
+
+    mockMvc.perform(patch("/auth/orders/{id}/items", 10)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(ProductionOrderItemsPatchDto.builder()
+              .upsert(List.of(change))
+              .delete(List.of(6L))
+              .build())))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].id").value(5))
+      .andExpect(jsonPath("$[0].widthMm").value(1500));
+
+    ArgumentCaptor<ProductionOrderItemsPatchDto> captor = ArgumentCaptor.forClass(ProductionOrderItemsPatchDto.class);
+    verify(service).patchItems(eq(10L), captor.capture());
+    assertThat(captor.getValue().getUpsert()).extracting(ProductionOrderItemDto::getId).containsExactly(5L);
+    assertThat(captor.getValue().getDelete()).containsExactly(6L);
+  }
+
   @Test
   void clearItems_shouldReturnNoContent() throws Exception{
     mockMvc.perform(delete("/auth/orders/{id}/items",80))
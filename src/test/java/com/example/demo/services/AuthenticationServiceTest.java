@@ -12,6 +12,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,6 +36,12 @@ public class AuthenticationServiceTest {
   @Mock
   private EmailService emailService;
 
+  @Mock
+  private CachingUserDetailsService userDetailsService;
+
+  @Mock
+  private VerificationCodeStore verificationCodeStore;
+
   @InjectMocks
   private AuthenticationService authenticationService;
 
@@ -62,18 +69,22 @@ public class AuthenticationServiceTest {
     assertThat(savedUser.getEmail()).isEqualTo("juan@example.com");
     assertThat(savedUser.getPassword()).isEqualTo("encoded-123456");
     assertThat(savedUser.isEnabled()).isFalse();
-    assertThat(savedUser.getVerificationCode()).matches("\\d{6}");
     assertThat(savedUser.getVerificationCodeExpiresAt())
       .isAfterOrEqualTo(before.plusMinutes(14))
       .isBeforeOrEqualTo(after.plusMinutes(16));
 
+    ArgumentCaptor<String> codeCaptor = ArgumentCaptor.forClass(String.class);
+    verify(verificationCodeStore).put(eq("juan@example.com"), codeCaptor.capture(), any(Instant.class));
+    assertThat(codeCaptor.getValue()).matches("\\d{6}");
+
     verify(emailService).sendVerificationEmail(
       eq("juan@example.com"),
       eq("Account Verification"),
-      contains(savedUser.getVerificationCode())
+      contains(codeCaptor.getValue())
     );
 
     assertThat(result).isSameAs(savedUser);
+    verify(userDetailsService).evict("juan@example.com");
   }
 
   @Test
@@ -140,17 +151,19 @@ public class AuthenticationServiceTest {
 
     User user = new User("juan", "juan@example.com", "encoded");
     user.setEnabled(false);
-    user.setVerificationCode("123456");
     user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(5));
 
     when(userRepository.findByEmail("juan@example.com")).thenReturn(java.util.Optional.of(user));
+    when(verificationCodeStore.find("juan@example.com")).thenReturn(java.util.Optional.of(
+      new VerificationCodeStore.StoredCode("123456", Instant.now().plusSeconds(300))));
 
     authenticationService.verifyUser(dto);
 
     assertThat(user.isEnabled()).isTrue();
-    assertThat(user.getVerificationCode()).isNull();
     assertThat(user.getVerificationCodeExpiresAt()).isNull();
     verify(userRepository).save(user);
+    verify(verificationCodeStore).remove("juan@example.com");
+    verify(userDetailsService).evict("juan@example.com");
   }
 
   @Test
@@ -161,11 +174,12 @@ public class AuthenticationServiceTest {
 
     User user = new User("juan", "juan@example.com", "encoded");
     user.setEnabled(false);
-    user.setVerificationCode("123456");
     user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(5));
 
     when(userRepository.findByEmail("juan@example.com"))
       .thenReturn(java.util.Optional.of(user));
+    when(verificationCodeStore.find("juan@example.com")).thenReturn(java.util.Optional.of(
+      new VerificationCodeStore.StoredCode("123456", Instant.now().plusSeconds(300))));
 
     RuntimeException exception = org.junit.jupiter.api.Assertions.assertThrows(RuntimeException.class, () -> authenticationService.verifyUser(dto));
     assertThat(exception.getMessage()).isEqualTo("Invalid verification code");
@@ -179,11 +193,12 @@ public class AuthenticationServiceTest {
 
     User user = new User("juan", "juan@example.com", "encoded");
     user.setEnabled(false);
-    user.setVerificationCode("123456");
     user.setVerificationCodeExpiresAt(LocalDateTime.now().minusMinutes(1));
 
     when(userRepository.findByEmail("juan@example.com"))
       .thenReturn(java.util.Optional.of(user));
+    when(verificationCodeStore.find("juan@example.com")).thenReturn(java.util.Optional.of(
+      new VerificationCodeStore.StoredCode("123456", Instant.now().minusSeconds(60))));
 
     RuntimeException ex = org.junit.jupiter.api.Assertions.assertThrows(
       RuntimeException.class,
@@ -0,0 +1,126 @@
+package com.example.demo.services;
+
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingUserDetailsServiceTest {
+
+  @Mock
+  private UserRepository userRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private CachingUserDetailsService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service = new CachingUserDetailsService(userRepository, meterRegistry, Duration.ofMinutes(5), 100);
+  }
+
+  @Test
+  void loadUserByUsername_shouldHitRepositoryOnlyOnce() {
+    User user = new User("juan", "juan@example.com", "encoded");
+    user.setId(7L);
+    when(userRepository.findByEmail("juan@example.com")).thenReturn(Optional.of(user));
+
+    assertThat(service.loadUserByUsername("juan@example.com").getId()).isEqualTo(7L);
+    assertThat(service.loadUserByUsername("juan@example.com").getPassword()).isEqualTo("encoded");
+
+    verify(userRepository, times(1)).findByEmail("juan@example.com");
+    assertThat(meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit")
+      .functionCounter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void evict_shouldForceReloadFromRepository() {
+    User user = new User("juan", "juan@example.com", "encoded");
+    when(userRepository.findByEmail("juan@example.com")).thenReturn(Optional.of(user));
+
+    service.loadUserByUsername("juan@example.com");
+    service.evict("juan@example.com");
+    service.loadUserByUsername("juan@example.com");
+
+    verify(userRepository, times(2)).findByEmail("juan@example.com");
+  }
+
+  @Test
+  void loadUserByUsername_shouldNotCacheMissingUsers() {
+    when(userRepository.findByEmail("missing@example.com")).thenReturn(Optional.empty());
+
+    assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("missing@example.com"));
+    assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("missing@example.com"));
+
+    verify(userRepository, times(2)).findByEmail("missing@example.com");
+  }
+
+  @Test
+  void loadUserByUsername_shouldHandOutCopiesThatCannotChangeTheCache() {
+    User user = new User("juan", "juan@example.com", "encoded");
+    when(userRepository.findByEmail("juan@example.com")).thenReturn(Optional.of(user));
+
+    User first = service.loadUserByUsername("juan@example.com");
+    first.setPassword("tampered");
+    service.updatePassword(first, "rehashed");
+
+    assertThat(service.loadUserByUsername("juan@example.com")).isNotSameAs(first);
+    verify(userRepository).updatePassword("juan@example.com", "rehashed");
+  }
+
+  @Test
+  void evictById_shouldForceReloadOfThatUserOnly() {
+    User juan = new User("juan", "juan@example.com", "encoded");
+    juan.setId(1L);
+    User pedro = new User("pedro", "pedro@example.com", "encoded");
+    pedro.setId(2L);
+    when(userRepository.findByEmail("juan@example.com")).thenReturn(Optional.of(juan));
+    when(userRepository.findByEmail("pedro@example.com")).thenReturn(Optional.of(pedro));
+    service.loadUserByUsername("juan@example.com");
+    service.loadUserByUsername("pedro@example.com");
+
+    service.evictById(1L);
+    service.loadUserByUsername("juan@example.com");
+    service.loadUserByUsername("pedro@example.com");
+
+    verify(userRepository, times(2)).findByEmail("juan@example.com");
+    verify(userRepository, times(1)).findByEmail("pedro@example.com");
+  }
+
+  @Test
+  void evict_shouldRunAgainAfterTheTransactionCompletes() {
+    User user = new User("juan", "juan@example.com", "encoded");
+    when(userRepository.findByEmail("juan@example.com")).thenReturn(Optional.of(user));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      service.evict("juan@example.com");
+      // una carga concurrente mientras la transacción sigue abierta vuelve a cachear la fila vieja
+      service.loadUserByUsername("juan@example.com");
+      TransactionSynchronizationManager.getSynchronizations()
+        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    service.loadUserByUsername("juan@example.com");
+
+    verify(userRepository, times(2)).findByEmail("juan@example.com");
+  }
+}
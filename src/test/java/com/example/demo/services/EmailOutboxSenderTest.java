@@ -0,0 +1,91 @@
+package com.example.demo.services;
+
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repositories.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EmailOutboxSenderTest {
+
+  @RegisterExtension
+  static GreenMailExtension greenMail = new GreenMailExtension(new ServerSetup(3025, null, ServerSetup.PROTOCOL_SMTP));
+
+  @Autowired
+  private EmailOutboxRepository emailOutboxRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @AfterEach
+  void cleanUp() {
+    emailOutboxRepository.deleteAll();
+  }
+
+  @Test
+  void drain_shouldSendWholeBatchAndRemoveItFromOutbox() throws Exception {
+    EmailService emailService = new EmailService(emailOutboxRepository);
+    emailService.sendVerificationEmail("juan@example.com", "Account Verification", "<p>123456</p>");
+    emailService.sendVerificationEmail("ana@example.com", "Account Verification", "<p>654321</p>");
+
+    EmailOutboxSender sender = newSender(mailSender(3025));
+
+    sender.drain();
+
+    assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    assertThat(greenMail.getReceivedMessages()[0].getSubject()).isEqualTo("Account Verification");
+    assertThat(emailOutboxRepository.count()).isZero();
+    assertThat(registry.get("email.outbox.sent").counter().count()).isEqualTo(2.0);
+    assertThat(registry.get("email.outbox.lag").timeGauge().value()).isZero();
+  }
+
+  @Test
+  void drain_shouldBackOffAndOpenCircuitWhenSmtpIsDown() {
+    new EmailService(emailOutboxRepository).sendVerificationEmail("juan@example.com", "Account Verification", "<p>123456</p>");
+    EmailOutboxSender sender = newSender(mailSender(3026));
+    Instant before = Instant.now();
+
+    sender.drain();
+
+    List<EmailOutbox> pending = emailOutboxRepository.findAll();
+    assertThat(pending).hasSize(1);
+    assertThat(pending.get(0).getAttempts()).isEqualTo(1);
+    assertThat(pending.get(0).getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+    assertThat(pending.get(0).getNextAttemptAt()).isAfter(before.plusSeconds(20));
+    assertThat(pending.get(0).getLastError()).isNotBlank();
+    assertThat(registry.get("email.outbox.circuit.open").gauge().value()).isEqualTo(1.0);
+    assertThat(registry.get("email.outbox.lag").timeGauge().value()).isGreaterThanOrEqualTo(0.0);
+  }
+
+  private EmailOutboxSender newSender(JavaMailSenderImpl mailSender) {
+    return new EmailOutboxSender(emailOutboxRepository, mailSender, transactionManager, registry,
+      50, 3, Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofHours(1), 1, Duration.ofMinutes(1));
+  }
+
+  private static JavaMailSenderImpl mailSender(int port) {
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(port);
+    mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+    return mailSender;
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryVerificationCodeStoreTest {
+
+  private final InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(Duration.ofSeconds(1), 8);
+
+  @Test
+  void advance_shouldReclaimOnlyExpiredCodes() {
+    Instant now = Instant.now();
+    store.put("juan@example.com", "123456", now.plusSeconds(3));
+    store.put("ana@example.com", "654321", now.plusSeconds(60));
+
+    store.advance(now.plusSeconds(5));
+
+    assertThat(store.find("juan@example.com")).isEmpty();
+    assertThat(store.find("ana@example.com")).get().extracting(VerificationCodeStore.StoredCode::code).isEqualTo("654321");
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  void advance_shouldKeepCodesScheduledForLaterRotations() {
+    Instant now = Instant.now();
+    // 8 ranuras de 1s: vence en la misma ranura que "now + 4s" pero dos vueltas después
+    store.put("juan@example.com", "123456", now.plusSeconds(20));
+
+    store.advance(now.plusSeconds(8));
+    assertThat(store.find("juan@example.com")).isPresent();
+
+    store.advance(now.plusSeconds(22));
+    assertThat(store.find("juan@example.com")).isEmpty();
+  }
+
+  @Test
+  void put_shouldReplaceCodeWithoutOldTimeoutRemovingTheNewOne() {
+    Instant now = Instant.now();
+    store.put("juan@example.com", "111111", now.plusSeconds(2));
+    store.put("juan@example.com", "222222", now.plusSeconds(60));
+
+    store.advance(now.plusSeconds(4));
+
+    assertThat(store.find("juan@example.com")).get().extracting(VerificationCodeStore.StoredCode::code).isEqualTo("222222");
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.services;
+
+import com.example.demo.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JwtKeyRingTest {
+
+  private static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void generateToken_shouldSignWithActiveKeyFromFile() throws Exception {
+    Path keyFile = tempDir.resolve("jwt-keys.properties");
+    Files.writeString(keyFile, asymmetricKeyFile("rsa-1", "RS256", "RSA", 2048));
+
+    JwtKeyRing keyRing = new JwtKeyRing(SECRET, keyFile.toString(), 3600000L);
+    JwtService jwtService = newJwtService(keyRing);
+
+    String token = jwtService.generateToken(new User("juan", "juan@example.com", "encoded"));
+
+    assertThat(keyRing.activeKey().kid()).isEqualTo("rsa-1");
+    assertThat(jwtService.verifyToken(token).subject()).isEqualTo("juan");
+    assertThat(keyRing.publicKeys()).extracting(JwtKeyRing.JwtKey::kid).containsExactly("rsa-1");
+  }
+
+  @Test
+  void reload_shouldRotateActiveKeyAndKeepVerifyingRetiredOne() throws Exception {
+    Path keyFile = tempDir.resolve("jwt-keys.properties");
+    Files.writeString(keyFile, asymmetricKeyFile("rsa-1", "RS256", "RSA", 2048));
+    JwtKeyRing keyRing = new JwtKeyRing(SECRET, keyFile.toString(), 3600000L);
+    String oldToken = newJwtService(keyRing).generateToken(new User("juan", "juan@example.com", "encoded"));
+
+    Files.writeString(keyFile, asymmetricKeyFile("ec-2", "ES256", "EC", 256));
+    keyRing.reload();
+    JwtService jwtService = newJwtService(keyRing);
+    String newToken = jwtService.generateToken(new User("juan", "juan@example.com", "encoded"));
+
+    assertThat(keyRing.activeKey().kid()).isEqualTo("ec-2");
+    assertThat(jwtService.verifyToken(oldToken).subject()).isEqualTo("juan");
+    assertThat(jwtService.verifyToken(newToken).subject()).isEqualTo("juan");
+    assertThat(keyRing.publicKeys()).extracting(JwtKeyRing.JwtKey::kid).containsExactlyInAnyOrder("ec-2", "rsa-1");
+  }
+
+  @Test
+  void verifyToken_shouldAcceptLegacyTokensWithoutKidAndRejectUnknownKid() {
+    JwtService jwtService = newJwtService(new JwtKeyRing(SECRET, "", 3600000L));
+
+    String legacy = Jwts.builder()
+      .setSubject("juan")
+      .setExpiration(new Date(System.currentTimeMillis() + 60000))
+      .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+      .compact();
+    String unknownKid = Jwts.builder()
+      .setHeaderParam("kid", "nope")
+      .setSubject("juan")
+      .setExpiration(new Date(System.currentTimeMillis() + 60000))
+      .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+      .compact();
+
+    assertThat(jwtService.verifyToken(legacy).subject()).isEqualTo("juan");
+    assertThrows(UnsupportedJwtException.class, () -> jwtService.verifyToken(unknownKid));
+  }
+
+  private static JwtService newJwtService(JwtKeyRing keyRing) {
+    JwtService jwtService = new JwtService(keyRing);
+    ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3600000L);
+    ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100L);
+    jwtService.init();
+    return jwtService;
+  }
+
+  private static String asymmetricKeyFile(String kid, String algorithm, String keyType, int keySize) throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance(keyType);
+    generator.initialize(keySize);
+    KeyPair pair = generator.generateKeyPair();
+    Base64.Encoder encoder = Base64.getEncoder();
+    return "active=" + kid + "\n"
+      + "keys." + kid + ".algorithm=" + algorithm + "\n"
+      + "keys." + kid + ".private-key=" + encoder.encodeToString(pair.getPrivate().getEncoded()) + "\n"
+      + "keys." + kid + ".public-key=" + encoder.encodeToString(pair.getPublic().getEncoded()) + "\n";
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.services;
+
+import com.example.demo.model.User;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JwtServiceTest {
+
+  private JwtService jwtService;
+
+  @BeforeEach
+  void setUp() {
+    jwtService = new JwtService(new JwtKeyRing("MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=", "", 3600000L));
+    ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3600000L);
+    ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100L);
+    jwtService.init();
+  }
+
+  @Test
+  void verifyToken_shouldReturnClaimsOfGeneratedToken() {
+    User user = new User("juan", "juan@example.com", "encoded");
+
+    String token = jwtService.generateToken(user);
+    VerifiedToken claims = jwtService.verifyToken(token);
+
+    assertThat(claims.subject()).isEqualTo("juan");
+    assertThat(jwtService.isTokenValid(claims, user)).isTrue();
+  }
+
+  @Test
+  void verifyToken_shouldServeRepeatedTokenFromCache() {
+    String token = jwtService.generateToken(new User("juan", "juan@example.com", "encoded"));
+
+    VerifiedToken first = jwtService.verifyToken(token);
+    VerifiedToken second = jwtService.verifyToken(token);
+
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  void verifyToken_shouldReturnImmutableSnapshotSharedAcrossCallers() {
+    User user = new User("juan", "juan@example.com", "encoded");
+    user.setId(5L);
+    String token = jwtService.generateToken(user);
+
+    VerifiedToken claims = jwtService.verifyToken(token);
+
+    assertThrows(UnsupportedOperationException.class, () -> claims.authorities().clear());
+    assertThat(jwtService.verifyToken(token).subject()).isEqualTo("juan");
+    assertThat(jwtService.extractPrincipal(claims).getId()).isEqualTo(5L);
+  }
+
+  @Test
+  void verifyToken_shouldSkipNullAuthorities() {
+    String token = jwtService.generateToken(
+      Map.of(JwtService.CLAIM_AUTHORITIES, Arrays.asList("ROLE_USER", null)),
+      org.springframework.security.core.userdetails.User.withUsername("juan").password("encoded").build());
+
+    VerifiedToken claims = jwtService.verifyToken(token);
+
+    assertThat(claims.authorities()).isEqualTo(List.of("ROLE_USER"));
+  }
+
+  @Test
+  void verifyToken_shouldRejectTamperedSignature() {
+    String token = jwtService.generateToken(new User("juan", "juan@example.com", "encoded"));
+    String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+    assertThrows(SignatureException.class, () -> jwtService.verifyToken(tampered));
+  }
+
+  @Test
+  void isTokenValid_shouldFailForAnotherUser() {
+    String token = jwtService.generateToken(new User("juan", "juan@example.com", "encoded"));
+
+    assertThat(jwtService.isTokenValid(token, new User("pedro", "pedro@example.com", "encoded"))).isFalse();
+  }
+
+  @Test
+  void extractPrincipal_shouldRebuildUserFromClaims() {
+    User user = new User("juan", "juan@example.com", "encoded");
+    user.setId(42L);
+    user.setEnabled(true);
+    user.setTokenVersion(3);
+
+    VerifiedToken claims = jwtService.verifyToken(jwtService.generateToken(user));
+    User principal = jwtService.extractPrincipal(claims);
+
+    assertThat(principal.getId()).isEqualTo(42L);
+    assertThat(principal.getUsername()).isEqualTo("juan");
+    assertThat(principal.getEmail()).isEqualTo("juan@example.com");
+    assertThat(principal.isEnabled()).isTrue();
+    assertThat(principal.getTokenVersion()).isEqualTo(3);
+    assertThat(principal.getPassword()).isNull();
+  }
+
+  @Test
+  void isTokenValid_shouldFailWhenTokenVersionWasBumped() {
+    User user = new User("juan", "juan@example.com", "encoded");
+    user.setId(42L);
+    String token = jwtService.generateToken(user);
+
+    user.setTokenVersion(1);
+
+    assertThat(jwtService.isTokenValid(token, user)).isFalse();
+  }
+}
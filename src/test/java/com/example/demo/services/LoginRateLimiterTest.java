@@ -0,0 +1,57 @@
+package com.example.demo.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoginRateLimiterTest {
+
+  private final LoginRateLimiter limiter = new LoginRateLimiter(
+    3, Duration.ofHours(1),
+    10, Duration.ofHours(1),
+    1000,
+    new SimpleMeterRegistry()
+  );
+
+  @Test
+  void acquire_shouldRejectEmailAfterCapacityIsExhausted() {
+    for (int i = 0; i < 3; i++) {
+      assertDoesNotThrow(() -> limiter.acquire("10.0.0.1", "juan@example.com"));
+    }
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+      () -> limiter.acquire("10.0.0.2", "Juan@Example.com"));
+
+    assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @Test
+  void acquire_shouldRejectIpAcrossDifferentEmails() {
+    for (int i = 0; i < 10; i++) {
+      String email = "user" + i + "@example.com";
+      assertDoesNotThrow(() -> limiter.acquire("10.0.0.9", email));
+    }
+
+    assertThrows(ResponseStatusException.class, () -> limiter.acquire("10.0.0.9", "other@example.com"));
+    assertDoesNotThrow(() -> limiter.acquire("10.0.0.10", "other@example.com"));
+  }
+
+  @Test
+  void bucket_shouldRefillOverTime() {
+    LoginRateLimiter.Bucket bucket = new LoginRateLimiter.Bucket();
+    long interval = 100;
+    long tolerance = interval; // capacidad 2
+
+    assertThat(bucket.tryAcquire(0, interval, tolerance)).isTrue();
+    assertThat(bucket.tryAcquire(0, interval, tolerance)).isTrue();
+    assertThat(bucket.tryAcquire(0, interval, tolerance)).isFalse();
+    assertThat(bucket.tryAcquire(100, interval, tolerance)).isTrue();
+  }
+}
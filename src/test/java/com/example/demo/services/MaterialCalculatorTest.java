@@ -0,0 +1,47 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MaterialCalculatorTest {
+
+  @Test
+  void compute_shouldMatchTotalsExactly() {
+    int[] widths = {1000, 900, 333};
+    int[] heights = {1200, 2100, 333};
+    int[] quantities = {2, 1, 3};
+    long[] profile = new long[3];
+    long[] glass = new long[3];
+
+    long hardware = MaterialCalculator.compute(widths, heights, quantities, 3, profile, glass);
+    MaterialCalculator.Totals totals = new MaterialCalculator.Totals().addAll(widths, heights, quantities, 0, 3);
+
+    assertThat(profile).containsExactly(8_800, 6_000, 3_996);
+    assertThat(glass).containsExactly(2_400_000, 1_890_000, 332_667);
+    assertThat(hardware).isEqualTo(6);
+    assertThat(totals.profileMm()).isEqualTo(profile[0] + profile[1] + profile[2]);
+    assertThat(totals.glassMm2()).isEqualTo(glass[0] + glass[1] + glass[2]);
+    assertThat(totals.profileMeters()).isEqualTo(18.796);
+    assertThat(totals.glassSquareMeters()).isEqualTo(4.623);
+  }
+
+  @Test
+  void toSquareMeters_shouldRoundHalfUpToThreeDecimals() {
+    assertThat(MaterialCalculator.toSquareMeters(1_234_499)).isEqualTo(1.234);
+    assertThat(MaterialCalculator.toSquareMeters(1_234_500)).isEqualTo(1.235);
+    assertThat(MaterialCalculator.toSquareMeters(0)).isEqualTo(0.0);
+  }
+
+  @Test
+  void totals_shouldMergeAcrossAccumulatorsWithoutOverflow() {
+    MaterialCalculator.Totals left = new MaterialCalculator.Totals().add(6000, 6000, 100);
+    MaterialCalculator.Totals right = new MaterialCalculator.Totals().add(6000, 6000, 100);
+
+    left.merge(right);
+
+    assertThat(left.glassMm2()).isEqualTo(7_200_000_000L);
+    assertThat(left.hardwareUnits()).isEqualTo(200);
+    assertThat(left.glassSquareMeters()).isEqualTo(7200.0);
+  }
+}
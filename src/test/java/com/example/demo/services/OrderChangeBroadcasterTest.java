@@ -0,0 +1,227 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.OrderChangeDto;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderChangeBroadcasterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  // Las escrituras quedan encoladas hasta que el test las corre
+  private final Queue<Runnable> writerTasks = new ArrayDeque<>();
+
+  private final OrderChangeBroadcaster broadcaster =
+    new OrderChangeBroadcaster(meterRegistry, writerTasks::add, 2, 10, Duration.ofMinutes(1), Duration.ofSeconds(10));
+
+  @Test
+  void publish_shouldDeliverOnlyToMatchingSubscribers() {
+    CapturingEmitter all = subscribe(null, null);
+    CapturingEmitter team7 = subscribe(7L, null);
+    CapturingEmitter scheduled = subscribe(null, (short) 2);
+
+    broadcaster.publish(event(order(1L, 7L, (short) 1), ProductionOrderEvent.Type.STATUS_CHANGED, (short) 1, (short) 2));
+    runWriters();
+    broadcaster.publish(event(order(2L, 8L, (short) 1), ProductionOrderEvent.Type.ITEMS_CHANGED, null, null));
+    runWriters();
+    broadcaster.publish(event(order(3L, 8L, (short) 2), ProductionOrderEvent.Type.STATUS_CHANGED, (short) 2, (short) 1));
+    runWriters();
+
+    assertThat(all.orderIds()).containsExactly(1L, 2L, 3L);
+    assertThat(team7.orderIds()).containsExactly(1L);
+    // entra al estado 2 (orden 1) y sale del estado 2 (orden 3)
+    assertThat(scheduled.orderIds()).containsExactly(1L, 3L);
+  }
+
+  @Test
+  void slowSubscriber_shouldKeepOnlyNewestChanges() {
+    CapturingEmitter emitter = subscribe(null, null);
+
+    for (long id = 1; id <= 5; id++) {
+      broadcaster.publish(event(order(id, null, (short) 1), ProductionOrderEvent.Type.UPDATED, (short) 1, (short) 1));
+    }
+    // una sola tarea de escritura pendiente por suscriptor
+    assertThat(writerTasks).hasSize(1);
+    runWriters();
+
+    assertThat(emitter.orderIds()).containsExactly(4L, 5L);
+    assertThat(meterRegistry.get("orders.stream.dropped").counter().count()).isEqualTo(3);
+  }
+
+  @Test
+  void heartbeat_shouldNeverDisplacePendingChanges() {
+    CapturingEmitter emitter = subscribe(null, null);
+    broadcaster.publish(event(order(1L, null, (short) 1), ProductionOrderEvent.Type.UPDATED, (short) 1, (short) 1));
+    broadcaster.publish(event(order(2L, null, (short) 1), ProductionOrderEvent.Type.UPDATED, (short) 1, (short) 1));
+
+    broadcaster.heartbeat();
+    runWriters();
+
+    assertThat(emitter.orderIds()).containsExactly(1L, 2L);
+    assertThat(emitter.heartbeats).isZero();
+    assertThat(meterRegistry.get("orders.stream.dropped").counter().count()).isZero();
+
+    // sin nada pendiente sí se manda
+    broadcaster.heartbeat();
+    runWriters();
+    assertThat(emitter.heartbeats).isEqualTo(1);
+  }
+
+  @Test
+  void stalledSubscriber_shouldBeDisconnectedByItsWriter() {
+    CapturingEmitter emitter = subscribe(null, null);
+
+    // buffer de 2: el sexto cambio descarta el cuarto sin que el escritor haya avanzado
+    for (long id = 1; id <= 6; id++) {
+      broadcaster.publish(event(order(id, null, (short) 1), ProductionOrderEvent.Type.UPDATED, (short) 1, (short) 1));
+    }
+
+    assertThat(broadcaster.subscriberCount()).isZero();
+    assertThat(meterRegistry.get("orders.stream.stalled").counter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("orders.stream.dropped").counter().count()).isEqualTo(6);
+    assertThat(emitter.completed).isFalse();
+
+    runWriters();
+
+    assertThat(emitter.sent).isEmpty();
+    assertThat(emitter.completed).isTrue();
+  }
+
+  @Test
+  void stalledSend_shouldDisconnectTheClientWithoutHoldingBackOthers() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(1);
+    OrderChangeBroadcaster broadcaster =
+      new OrderChangeBroadcaster(meterRegistry, pool, 2, 10, Duration.ofMinutes(1), Duration.ofMillis(100));
+    try {
+      BlockingEmitter stuck = new BlockingEmitter(true);
+      BlockingEmitter other = new BlockingEmitter(false);
+      broadcaster.register(stuck, 1L, null);
+      broadcaster.register(other, 2L, null);
+
+      broadcaster.publish(event(order(1L, 1L, (short) 1), ProductionOrderEvent.Type.UPDATED, (short) 1, (short) 1));
+      assertThat(stuck.sending.await(5, TimeUnit.SECONDS)).isTrue();
+      Thread.sleep(150);
+      // el único escritor está trabado: este cambio queda en la cola del pool
+      broadcaster.publish(event(order(2L, 2L, (short) 1), ProductionOrderEvent.Type.UPDATED, (short) 1, (short) 1));
+
+      broadcaster.disconnectStalledWriters();
+
+      assertThat(other.sending.await(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+      assertThat(meterRegistry.get("orders.stream.stalled").counter().count()).isEqualTo(1);
+      assertThat(stuck.completed.getCount()).isEqualTo(1);
+
+      // cuando el envío trabado vuelve, su propio escritor completa el emitter
+      stuck.release.countDown();
+      assertThat(stuck.completed.await(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void failedSend_shouldRemoveSubscriber() {
+    CapturingEmitter emitter = subscribe(null, null);
+    emitter.failing = true;
+
+    broadcaster.heartbeat();
+    runWriters();
+
+    assertThat(broadcaster.subscriberCount()).isZero();
+  }
+
+  private CapturingEmitter subscribe(Long teamId, Short statusId) {
+    CapturingEmitter emitter = new CapturingEmitter();
+    broadcaster.register(emitter, teamId, statusId);
+    return emitter;
+  }
+
+  private void runWriters() {
+    Runnable task;
+    while ((task = writerTasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private static ProductionOrder order(Long id, Long teamId, short statusId) {
+    return ProductionOrder.builder().id(id).teamId(teamId).statusId(statusId).build();
+  }
+
+  private static ProductionOrderEvent event(ProductionOrder order, ProductionOrderEvent.Type type, Short from, Short to) {
+    return OrderEventLog.event(order, type, from, to, null);
+  }
+
+  private static final class BlockingEmitter extends SseEmitter {
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release;
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    BlockingEmitter(boolean blocks) {
+      release = new CountDownLatch(blocks ? 1 : 0);
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      sending.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void complete() {
+      completed.countDown();
+      super.complete();
+    }
+  }
+
+  private static final class CapturingEmitter extends SseEmitter {
+    private final List<OrderChangeDto> sent = new ArrayList<>();
+    private boolean failing;
+    private int heartbeats;
+    private boolean completed;
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (failing) {
+        throw new IOException("Broken pipe");
+      }
+      builder.build().forEach(part -> {
+        if (part.getData() instanceof OrderChangeDto change) {
+          sent.add(change);
+        } else if (part.getData() instanceof String text && text.contains("heartbeat")) {
+          heartbeats++;
+        }
+      });
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+      super.complete();
+    }
+
+    List<Long> orderIds() {
+      return sent.stream().map(OrderChangeDto::getOrderId).toList();
+    }
+  }
+}
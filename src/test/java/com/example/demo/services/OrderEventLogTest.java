@@ -0,0 +1,111 @@
+package com.example.demo.services;
+
+import com.example.demo.model.ProductionOrderEvent;
+import com.example.demo.repositories.ProductionOrderEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderEventLogTest {
+
+  @Autowired
+  private ProductionOrderEventRepository repository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @AfterEach
+  void cleanUp() {
+    repository.deleteAll();
+  }
+
+  @Test
+  void flush_shouldWriteQueuedEventsInBatches() {
+    OrderEventLog eventLog = eventLog(64, 2);
+    eventLog.append(OrderEventLog.event(1L, ProductionOrderEvent.Type.CREATED, null, (short) 1, null));
+    eventLog.append(OrderEventLog.event(2L, ProductionOrderEvent.Type.CREATED, null, (short) 1, null));
+    eventLog.append(OrderEventLog.event(1L, ProductionOrderEvent.Type.STATUS_CHANGED, (short) 1, (short) 2, "CONFIRM"));
+    eventLog.append(OrderEventLog.event(1L, ProductionOrderEvent.Type.DELETED, (short) 2, null, null));
+
+    // nada llega a la base hasta que corre el writer
+    assertThat(repository.count()).isZero();
+    eventLog.flush();
+
+    assertThat(repository.count()).isEqualTo(4);
+    assertThat(meterRegistry.get("orders.events.written").counter().count()).isEqualTo(4);
+    assertThat(eventLog.timeline(1L))
+      .extracting(ProductionOrderEvent::getType)
+      .containsExactly(ProductionOrderEvent.Type.CREATED, ProductionOrderEvent.Type.STATUS_CHANGED,
+        ProductionOrderEvent.Type.DELETED);
+    ProductionOrderEvent confirm = eventLog.timeline(1L).get(1);
+    assertThat(confirm.getFromStatus()).isEqualTo((short) 1);
+    assertThat(confirm.getToStatus()).isEqualTo((short) 2);
+    assertThat(confirm.getDetails()).isEqualTo("CONFIRM");
+    assertThat(confirm.getOccurredAt()).isNotNull();
+  }
+
+  @Test
+  void timeline_shouldIncludeEventsStillInTheBuffer() {
+    OrderEventLog eventLog = eventLog(64, 500);
+    eventLog.append(OrderEventLog.event(5L, ProductionOrderEvent.Type.ITEMS_CHANGED, null, null, "patch"));
+
+    assertThat(eventLog.timeline(5L)).extracting(ProductionOrderEvent::getDetails).containsExactly("patch");
+  }
+
+  @Test
+  void append_shouldWriteDirectlyWhenBufferIsFull() {
+    OrderEventLog eventLog = eventLog(2, 500);
+    for (int i = 0; i < 3; i++) {
+      eventLog.append(OrderEventLog.event(9L, ProductionOrderEvent.Type.UPDATED, null, null, "n" + i));
+    }
+
+    assertThat(repository.count()).isEqualTo(1);
+    assertThat(meterRegistry.get("orders.events.overflow").counter().count()).isEqualTo(1);
+    eventLog.flush();
+    assertThat(repository.count()).isEqualTo(3);
+  }
+
+  @Test
+  void append_shouldCommitTheOverflowWriteWhenCalledAfterACommittedTransaction() {
+    OrderEventLog eventLog = eventLog(2, 500);
+    eventLog.append(OrderEventLog.event(9L, ProductionOrderEvent.Type.UPDATED, null, null, "n0"));
+    eventLog.append(OrderEventLog.event(9L, ProductionOrderEvent.Type.UPDATED, null, null, "n1"));
+
+    // Igual que @TransactionalEventListener: append corre en afterCommit con la conexión todavía ligada
+    new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          eventLog.append(OrderEventLog.event(9L, ProductionOrderEvent.Type.UPDATED, null, null, "overflow"));
+        }
+      }));
+
+    assertThat(repository.findByOrderIdOrderByOccurredAtAscIdAsc(9L))
+      .extracting(ProductionOrderEvent::getDetails).containsExactly("overflow");
+    assertThat(meterRegistry.get("orders.events.overflow").counter().count()).isEqualTo(1);
+  }
+
+  private OrderEventLog eventLog(int bufferSize, int batchSize) {
+    return new OrderEventLog(new JdbcTemplate(dataSource), repository, meterRegistry, transactionManager, bufferSize, batchSize);
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderEventRingTest {
+
+  @Test
+  void offer_shouldRejectWhenFullAndReuseSlotsAfterDrain() {
+    OrderEventRing<Integer> ring = new OrderEventRing<>(3);
+    assertThat(ring.capacity()).isEqualTo(4);
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(ring.offer(i)).isTrue();
+    }
+    assertThat(ring.offer(4)).isFalse();
+
+    List<Integer> drained = new ArrayList<>();
+    assertThat(ring.drainTo(drained, 3)).isEqualTo(3);
+    assertThat(ring.offer(5)).isTrue();
+    assertThat(ring.drainTo(drained, 10)).isEqualTo(2);
+    assertThat(drained).containsExactly(0, 1, 2, 3, 5);
+    assertThat(ring.size()).isZero();
+  }
+
+  @Test
+  void concurrentProducers_shouldDeliverEveryElementOnceAndInPerProducerOrder() throws Exception {
+    int producers = 4;
+    int perProducer = 20_000;
+    OrderEventRing<Long> ring = new OrderEventRing<>(256);
+    ExecutorService pool = Executors.newFixedThreadPool(producers);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int p = 0; p < producers; p++) {
+      long producer = p;
+      pool.submit(() -> {
+        start.await();
+        for (long i = 0; i < perProducer; i++) {
+          while (!ring.offer(producer << 32 | i)) {
+            Thread.onSpinWait();
+          }
+        }
+        return null;
+      });
+    }
+    start.countDown();
+
+    List<Long> received = new ArrayList<>();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+      ring.drainTo(received, 64);
+    }
+    pool.shutdownNow();
+
+    assertThat(received).hasSize(producers * perProducer);
+    long[] next = new long[producers];
+    for (long value : received) {
+      int producer = (int) (value >>> 32);
+      assertThat(value & 0xFFFFFFFFL).isEqualTo(next[producer]);
+      next[producer]++;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.services;
+
+import com.example.demo.model.OrderStatus;
+import com.example.demo.repositories.OrderStatusRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OrderStatusRegistryTest {
+
+  /** Registro con los mismos estados que siembra V4. */
+  static OrderStatusRegistry seededRegistry() {
+    OrderStatusRepository repository = mock(OrderStatusRepository.class);
+    when(repository.findAll()).thenReturn(seed());
+    return new OrderStatusRegistry(repository);
+  }
+
+  private static List<OrderStatus> seed() {
+    return new ArrayList<>(List.of(
+      new OrderStatus((short) 4, "COMPLETED", "Entregada"),
+      new OrderStatus((short) 1, "IN_PROGRESS", "En producción"),
+      new OrderStatus((short) 2, "SCHEDULED", "Programada"),
+      new OrderStatus((short) 3, "FOR_DELIVERY", "Lista para entregar")));
+  }
+
+  @Test
+  void transitions_shouldResolveToSeededIds() {
+    OrderStatusRegistry registry = seededRegistry();
+
+    assertThat(registry.initialStatus()).isEqualTo((short) 1);
+    assertThat(registry.from(OrderTransition.CONFIRM)).isEqualTo((short) 1);
+    assertThat(registry.to(OrderTransition.CONFIRM)).isEqualTo((short) 2);
+    assertThat(registry.target(2, OrderTransition.START)).isEqualTo((short) 1);
+    assertThat(registry.target(1, OrderTransition.FINISH)).isEqualTo((short) 3);
+    assertThat(registry.target(3, OrderTransition.DELIVER)).isEqualTo((short) 4);
+    assertThat(registry.statuses()).extracting(OrderStatus::getId)
+      .containsExactly((short) 1, (short) 2, (short) 3, (short) 4);
+  }
+
+  @Test
+  void canApply_shouldRejectWrongOrUnknownStatus() {
+    OrderStatusRegistry registry = seededRegistry();
+
+    assertThat(registry.canApply(1, OrderTransition.CONFIRM)).isTrue();
+    assertThat(registry.canApply(2, OrderTransition.CONFIRM)).isFalse();
+    assertThat(registry.canApply(4, OrderTransition.DELIVER)).isFalse();
+    assertThat(registry.canApply(99, OrderTransition.START)).isFalse();
+    assertThat(registry.target(-1, OrderTransition.START)).isEqualTo((short) -1);
+    assertThat(registry.exists(4)).isTrue();
+    assertThat(registry.exists(0)).isFalse();
+    assertThat(registry.exists(5)).isFalse();
+  }
+
+  @Test
+  void reload_shouldPickUpNewIdsAndKeepSnapshotWhenTableIsIncomplete() {
+    OrderStatusRepository repository = mock(OrderStatusRepository.class);
+    when(repository.findAll()).thenReturn(seed());
+    OrderStatusRegistry registry = new OrderStatusRegistry(repository);
+
+    List<OrderStatus> renumbered = seed();
+    renumbered.set(0, new OrderStatus((short) 10, "COMPLETED", "Entregada"));
+    when(repository.findAll()).thenReturn(renumbered);
+    registry.reload();
+    assertThat(registry.target(3, OrderTransition.DELIVER)).isEqualTo((short) 10);
+    assertThat(registry.exists(4)).isFalse();
+
+    when(repository.findAll()).thenReturn(seed().subList(1, 4));
+    assertThrows(IllegalStateException.class, registry::reload);
+    assertThat(registry.target(3, OrderTransition.DELIVER)).isEqualTo((short) 10);
+  }
+}
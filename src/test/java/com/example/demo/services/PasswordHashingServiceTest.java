@@ -0,0 +1,49 @@
+package com.example.demo.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PasswordHashingServiceTest {
+
+  @Test
+  void encodeAndMatches_shouldRunOnDedicatedPool() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    PasswordHashingService service = new PasswordHashingService(4, 1, 4, Duration.ofSeconds(5), registry);
+
+    String hash = service.encode("123456");
+
+    assertThat(service.matches("123456", hash)).isTrue();
+    assertThat(service.matches("654321", hash)).isFalse();
+    assertThat(registry.get("password.hashing.duration").tag("operation", "matches").timer().count()).isEqualTo(2);
+    service.shutdown();
+  }
+
+  @Test
+  void encode_shouldFailFastWith503WhenHashingTakesLongerThanMaxWait() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    PasswordHashingService service = new PasswordHashingService(14, 1, 1, Duration.ofMillis(1), registry);
+
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.encode("123456"));
+
+    assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    assertThat(registry.get("password.hashing.rejected").counter().count()).isEqualTo(1.0);
+    service.shutdown();
+  }
+
+  @Test
+  void upgradeEncoding_shouldFlagHashesWithLowerWorkFactor() {
+    PasswordHashingService service = new PasswordHashingService(6, 1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+    assertThat(service.upgradeEncoding(new BCryptPasswordEncoder(4).encode("123456"))).isTrue();
+    assertThat(service.upgradeEncoding(new BCryptPasswordEncoder(6).encode("123456"))).isFalse();
+    service.shutdown();
+  }
+}
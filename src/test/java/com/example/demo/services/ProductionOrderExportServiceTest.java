@@ -0,0 +1,133 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderItem;
+import com.example.demo.repositories.ProductionOrderItemRepository;
+import com.example.demo.repositories.ProductionOrderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductionOrderExportServiceTest {
+
+  @Autowired
+  private ProductionOrderRepository repository;
+
+  @Autowired
+  private ProductionOrderItemRepository itemRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final ObjectMapper objectMapper = JsonMapper.builder()
+    .findAndAddModules()
+    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+    .build();
+
+  private ProductionOrderExportService service;
+
+  @BeforeEach
+  void setUp() {
+    // fetch size chico para que los cursores traigan varias tandas
+    service = new ProductionOrderExportService(entityManager, transactionManager, objectMapper, 2);
+    for (int i = 0; i < 5; i++) {
+      ProductionOrder order = repository.save(ProductionOrder.builder()
+        .orderNumber("ORD-" + i)
+        .customerId(i == 4 ? 20L : 10L)
+        .statusId((short) 1)
+        .notes(i == 0 ? "con \"comillas\", y coma" : null)
+        .build());
+      // la orden 2 queda sin ítems
+      for (int j = 0; i != 2 && j < i + 1; j++) {
+        ProductionOrderItem item = new ProductionOrderItem();
+        item.setOrderId(order.getId());
+        item.setProductType("WINDOW-" + i + "-" + j);
+        item.setWidthMm(1000);
+        item.setHeightMm(500);
+        item.setQuantity(1);
+        itemRepository.save(item);
+      }
+    }
+  }
+
+  @AfterEach
+  void cleanUp() {
+    itemRepository.deleteAll();
+    repository.deleteAll();
+  }
+
+  @Test
+  void exportNdjson_shouldWriteOneFilteredOrderPerLineWithItsItems() throws Exception {
+    ProductionOrderFilter filter = ProductionOrderFilter.builder().customerId(10L).build();
+
+    List<JsonNode> lines = new ArrayList<>();
+    for (String line : export(filter, true, ProductionOrderExportService.Format.NDJSON).split("\n")) {
+      lines.add(objectMapper.readTree(line));
+    }
+
+    assertThat(lines).extracting(node -> node.get("orderNumber").asText())
+      .containsExactly("ORD-0", "ORD-1", "ORD-2", "ORD-3");
+    assertThat(lines).extracting(node -> node.get("items").size()).containsExactly(1, 2, 0, 4);
+    assertThat(lines.get(3).get("items").get(3).get("productType").asText()).isEqualTo("WINDOW-3-3");
+  }
+
+  @Test
+  void exportCsv_shouldWriteOneRowPerItemReadableByTheImportParser() throws Exception {
+    String csv = export(new ProductionOrderFilter(), true, ProductionOrderExportService.Format.CSV);
+
+    Csv.RecordReader reader = Csv.reader(new StringReader(csv));
+    List<String> header = reader.next();
+    List<List<String>> rows = new ArrayList<>();
+    List<String> row;
+    while ((row = reader.next()) != null) {
+      rows.add(row);
+    }
+
+    assertThat(header).containsAll(ProductionOrderImportService.CSV_COLUMNS);
+    // 1 + 2 + 1 (sin ítems) + 4 + 5
+    assertThat(rows).hasSize(13);
+    int notes = header.indexOf("orderNotes");
+    int productType = header.indexOf("productType");
+    assertThat(rows.get(0).get(notes)).isEqualTo("con \"comillas\", y coma");
+    assertThat(rows.get(3).get(productType)).isEmpty();
+  }
+
+  @Test
+  void exportCsv_withoutItemsShouldWriteOnlyOrderColumns() {
+    String csv = export(new ProductionOrderFilter(), false, ProductionOrderExportService.Format.CSV);
+
+    String[] lines = csv.split("\n");
+    assertThat(lines[0]).isEqualTo(String.join(",", ProductionOrderExportService.ORDER_COLUMNS));
+    assertThat(lines).hasSize(6);
+  }
+
+  private String export(ProductionOrderFilter filter, boolean items, ProductionOrderExportService.Format format) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    service.export(filter, items, format, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ImportReportDto;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderItem;
+import com.example.demo.repositories.OrderStatusRepository;
+import com.example.demo.repositories.ProductionOrderItemRepository;
+import com.example.demo.repositories.ProductionOrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductionOrderImportServiceTest {
+
+  @Autowired
+  private ProductionOrderRepository repository;
+
+  @Autowired
+  private ProductionOrderItemRepository itemRepository;
+
+  @Autowired
+  private OrderStatusRepository statusRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private ProductionOrderImportService service;
+
+  @BeforeEach
+  void setUp() {
+    // chunk de 2 para que la importación cruce varias transacciones
+    service = new ProductionOrderImportService(repository, itemRepository,
+      new OrderStatusRegistry(statusRepository), event -> { }, entityManager, transactionManager,
+      new ObjectMapper(), 2, 2);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    itemRepository.deleteAll();
+    repository.deleteAll();
+  }
+
+  @Test
+  void importCsv_shouldGroupRowsByOrderAndReportInvalidOnes() throws Exception {
+    String csv = """
+      orderNumber,customerId,startDate,orderNotes,productType,widthMm,heightMm,quantity,itemNotes
+      Q-1,10,2026-03-01,"Cliente, urgente",WINDOW,1200,1000,2,"dos líneas
+      en la nota"
+      Q-1,10,2026-03-01,,DOOR,900,2100,1,
+      Q-2,11,,,,,,,
+      Q-3,12,01/03/2026,,WINDOW,600,600,1,
+      Q-4,13,,,WINDOW,abc,600,1,
+      Q-5,14,,,WINDOW,800,800,,
+      """;
+
+    ImportReportDto report = service.importCsv(stream(csv));
+
+    assertThat(report.getOrdersImported()).isEqualTo(3);
+    assertThat(report.getItemsImported()).isEqualTo(3);
+    assertThat(report.getOrdersRejected()).isEqualTo(2);
+    assertThat(report.getErrors()).extracting(ImportReportDto.RowError::getLine).containsExactly(6L, 7L);
+    assertThat(report.getErrors()).extracting(ImportReportDto.RowError::getOrderNumber).containsExactly("Q-3", "Q-4");
+    assertThat(report.getErrors().get(1).getMessage()).isEqualTo("Line 7: widthMm is not a number: abc");
+
+    ProductionOrder q1 = order("Q-1");
+    assertThat(q1.getNotes()).isEqualTo("Cliente, urgente");
+    assertThat(q1.getStatusId()).isEqualTo((short) 1);
+    List<ProductionOrderItem> q1Items = itemRepository.findByOrderId(q1.getId());
+    assertThat(q1Items).extracting(ProductionOrderItem::getProductType).containsExactlyInAnyOrder("WINDOW", "DOOR");
+    assertThat(q1Items).extracting(ProductionOrderItem::getNotes).contains("dos líneas\nen la nota");
+    assertThat(itemRepository.findByOrderId(order("Q-2").getId())).isEmpty();
+    assertThat(itemRepository.findByOrderId(order("Q-5").getId()))
+      .extracting(ProductionOrderItem::getQuantity).containsExactly(1);
+  }
+
+  @Test
+  void importNdjson_shouldImportValidLinesAndTruncateErrorList() throws Exception {
+    String ndjson = """
+      {"orderNumber":"N-1","customerId":1,"items":[{"productType":"WINDOW","widthMm":1000,"heightMm":1000,"quantity":3}]}
+      {"orderNumber":"N-2","customerId":2}
+
+      {"orderNumber":"N-3"}
+      {not json
+      {"orderNumber":"N-4","customerId":4,"items":[{"productType":"DOOR","widthMm":0,"heightMm":2000}]}
+      {"orderNumber":"N-5","customerId":5,"teamId":7,"endDate":"2026-05-01"}
+      """;
+
+    ImportReportDto report = service.importNdjson(stream(ndjson));
+
+    assertThat(report.getOrdersImported()).isEqualTo(3);
+    assertThat(report.getItemsImported()).isEqualTo(1);
+    assertThat(report.getOrdersRejected()).isEqualTo(3);
+    assertThat(report.getErrors()).hasSize(2);
+    assertThat(report.isErrorsTruncated()).isTrue();
+    assertThat(report.getErrors().get(0).getLine()).isEqualTo(4);
+    assertThat(report.getErrors().get(0).getMessage()).isEqualTo("customerId is mandatory");
+    assertThat(report.getErrors().get(1).getMessage()).startsWith("Invalid JSON");
+    assertThat(repository.findAll()).extracting(ProductionOrder::getOrderNumber)
+      .containsExactlyInAnyOrder("N-1", "N-2", "N-5");
+    assertThat(order("N-5").getTeamId()).isEqualTo(7L);
+  }
+
+  @Test
+  void importCsv_shouldRejectOnlyTheOrderThatViolatesADatabaseConstraint() throws Exception {
+    // Una constraint que la validación del importador no conoce: el error aparece recién en el flush
+    jdbcTemplate.execute("alter table production_order_items add constraint ck_import_test_quantity check (quantity <= 1000)");
+    try {
+      String csv = """
+        orderNumber,customerId,productType,widthMm,heightMm,quantity
+        C-1,10,WINDOW,1000,1000,1
+        C-2,11,WINDOW,1000,1000,5000
+        C-3,12,DOOR,900,2100,2
+        """;
+
+      ImportReportDto report = service.importCsv(stream(csv));
+
+      assertThat(report.isAborted()).isFalse();
+      assertThat(report.getOrdersImported()).isEqualTo(2);
+      assertThat(report.getItemsImported()).isEqualTo(2);
+      assertThat(report.getOrdersRejected()).isEqualTo(1);
+      assertThat(report.getErrors()).extracting(ImportReportDto.RowError::getLine).containsExactly(3L);
+      assertThat(report.getErrors().get(0).getOrderNumber()).isEqualTo("C-2");
+      assertThat(repository.findAll()).extracting(ProductionOrder::getOrderNumber)
+        .containsExactlyInAnyOrder("C-1", "C-3");
+    } finally {
+      jdbcTemplate.execute("alter table production_order_items drop constraint ck_import_test_quantity");
+    }
+  }
+
+  private ProductionOrder order(String orderNumber) {
+    return repository.findAll().stream()
+      .filter(order -> orderNumber.equals(order.getOrderNumber()))
+      .findFirst()
+      .orElseThrow();
+  }
+
+  private static InputStream stream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
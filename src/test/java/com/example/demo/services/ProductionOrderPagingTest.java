@@ -0,0 +1,101 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.dto.ProductionOrderPage;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.repositories.OrderStatusRepository;
+import com.example.demo.repositories.ProductionOrderItemRepository;
+import com.example.demo.repositories.ProductionOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+public class ProductionOrderPagingTest {
+
+  @Autowired
+  private ProductionOrderRepository repository;
+
+  @Autowired
+  private ProductionOrderItemRepository itemRepository;
+
+  @Autowired
+  private OrderStatusRepository statusRepository;
+
+  private ProductionOrderService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new ProductionOrderService(repository, itemRepository,
+      new ProductionOrderSummaryCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), 100),
+      new OrderStatusRegistry(statusRepository), event -> { });
+    Instant base = Instant.parse("2026-01-01T00:00:00Z");
+    for (int i = 0; i < 7; i++) {
+      repository.save(ProductionOrder.builder()
+        .orderNumber("ORD-" + i)
+        .customerId(i % 2 == 0 ? 10L : 11L)
+        .statusId((short) 1)
+        .startDate(LocalDate.of(2026, 1, 1).plusDays(i))
+        // dos órdenes comparten created_at para ejercitar el desempate por id
+        .createdAt(base.plusSeconds(i == 6 ? 5 : i))
+        .build());
+    }
+  }
+
+  @Test
+  void getPage_shouldWalkAllOrdersNewestFirstWithoutGapsOrDuplicates() {
+    List<String> seen = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      ProductionOrderPage page = service.getPage(new ProductionOrderFilter(), cursor, 3);
+      page.orders().forEach(order -> seen.add(order.getOrderNumber()));
+      cursor = page.nextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertThat(pages).isEqualTo(3);
+    assertThat(seen).containsExactly("ORD-6", "ORD-5", "ORD-4", "ORD-3", "ORD-2", "ORD-1", "ORD-0");
+  }
+
+  @Test
+  void getPage_shouldApplyFilters() {
+    ProductionOrderFilter filter = ProductionOrderFilter.builder()
+      .customerId(10L)
+      .startFrom(LocalDate.of(2026, 1, 2))
+      .startTo(LocalDate.of(2026, 1, 5))
+      .build();
+
+    ProductionOrderPage page = service.getPage(filter, null, null);
+
+    assertThat(page.orders()).extracting(ProductionOrderDto::getOrderNumber).containsExactly("ORD-4", "ORD-2");
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  void getPage_shouldReturnEveryOrderWhenNeitherLimitNorCursorIsSent() {
+    ProductionOrderPage page = service.getPage(new ProductionOrderFilter(), null, null);
+
+    assertThat(page.orders()).extracting(ProductionOrderDto::getOrderNumber)
+      .containsExactly("ORD-6", "ORD-5", "ORD-4", "ORD-3", "ORD-2", "ORD-1", "ORD-0");
+    assertThat(page.nextCursor()).isNull();
+  }
+
+  @Test
+  void getPage_shouldRejectMalformedCursor() {
+    assertThrows(ResponseStatusException.class, () -> service.getPage(new ProductionOrderFilter(), "not-a-cursor", 3));
+  }
+}
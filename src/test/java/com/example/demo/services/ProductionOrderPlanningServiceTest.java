@@ -0,0 +1,114 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.MaterialPlanDto;
+import com.example.demo.dto.ProductionOrderFilter;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderItem;
+import com.example.demo.repositories.ProductionOrderItemRepository;
+import com.example.demo.repositories.ProductionOrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class ProductionOrderPlanningServiceTest {
+
+  @Autowired
+  private ProductionOrderRepository repository;
+
+  @Autowired
+  private ProductionOrderItemRepository itemRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Test
+  void plan_shouldAggregateMatchingOrdersByEachDimension() {
+    Long scheduledA = order((short) 2, 7L, LocalDate.of(2026, 3, 2));
+    Long scheduledB = order((short) 2, null, LocalDate.of(2026, 3, 5));
+    Long otherWeek = order((short) 2, 7L, LocalDate.of(2026, 3, 20));
+    Long inProgress = order((short) 1, 7L, LocalDate.of(2026, 3, 3));
+    item(scheduledA, 1000, 1200, 2, 11L, 21L, 31L);
+    item(scheduledA, 900, 2100, 1, 12L, 21L, null);
+    item(scheduledB, 500, 500, 4, 11L, null, 31L);
+    item(otherWeek, 1000, 1000, 1, 11L, 21L, 31L);
+    item(inProgress, 1000, 1000, 1, 11L, 21L, 31L);
+
+    // hoja de 1 para forzar divisiones y merges del fork/join
+    ProductionOrderPlanningService service = new ProductionOrderPlanningService(entityManager, 2, 1);
+    MaterialPlanDto plan = service.plan(ProductionOrderFilter.builder()
+      .statusId((short) 2)
+      .startFrom(LocalDate.of(2026, 3, 2))
+      .startTo(LocalDate.of(2026, 3, 8))
+      .build());
+
+    assertThat(plan.getOrderCount()).isEqualTo(2);
+    assertThat(plan.getItemCount()).isEqualTo(3);
+    // 8.8 + 6.0 + 8.0 m de perfil; 2.4 + 1.89 + 1.0 m² de vidrio
+    assertThat(plan.getTotals().getProfileMeters()).isEqualTo(22.8);
+    assertThat(plan.getTotals().getGlassSquareMeters()).isEqualTo(5.29);
+    assertThat(plan.getTotals().getHardwareUnits()).isEqualTo(7);
+
+    assertThat(plan.getByProfile()).extracting(MaterialPlanDto.Line::getId).containsExactly(11L, 12L);
+    assertThat(plan.getByProfile().get(0).getProfileMeters()).isEqualTo(16.8);
+    assertThat(plan.getByGlassType()).extracting(MaterialPlanDto.Line::getId).containsExactly(null, 21L);
+    assertThat(plan.getByGlassType().get(1).getGlassSquareMeters()).isEqualTo(4.29);
+    assertThat(plan.getByHardwareKit()).extracting(MaterialPlanDto.Line::getHardwareUnits).containsExactly(1L, 6L);
+    assertThat(plan.getByTeam()).extracting(MaterialPlanDto.Line::getId).containsExactly(null, 7L);
+    assertThat(plan.getByTeam()).extracting(MaterialPlanDto.Line::getItemCount).containsExactly(1L, 2L);
+  }
+
+  @Test
+  void plan_shouldMatchSequentialTotalsOnLargerInput() {
+    List<Long> orders = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      orders.add(order((short) 2, (long) (i % 3), LocalDate.of(2026, 3, 2)));
+    }
+    MaterialCalculator.Totals expected = new MaterialCalculator.Totals();
+    for (int i = 0; i < 2_000; i++) {
+      int width = 400 + i % 1700;
+      int height = 600 + (i * 7) % 1500;
+      int quantity = 1 + i % 5;
+      item(orders.get(i % orders.size()), width, height, quantity, (long) (i % 4), (long) (i % 6), null);
+      expected.add(width, height, quantity);
+    }
+
+    MaterialPlanDto plan = new ProductionOrderPlanningService(entityManager, 500, 64).plan(new ProductionOrderFilter());
+
+    assertThat(plan.getOrderCount()).isEqualTo(20);
+    assertThat(plan.getTotals().getProfileMeters()).isEqualTo(expected.profileMeters());
+    assertThat(plan.getTotals().getGlassSquareMeters()).isEqualTo(expected.glassSquareMeters());
+    assertThat(plan.getByProfile()).hasSize(4);
+    assertThat(plan.getByGlassType().stream().mapToLong(MaterialPlanDto.Line::getItemCount).sum()).isEqualTo(2_000);
+  }
+
+  private Long order(short statusId, Long teamId, LocalDate startDate) {
+    return repository.save(ProductionOrder.builder()
+      .orderNumber("ORD-" + startDate + "-" + statusId)
+      .customerId(1L)
+      .statusId(statusId)
+      .teamId(teamId)
+      .startDate(startDate)
+      .build()).getId();
+  }
+
+  private void item(Long orderId, int widthMm, int heightMm, int quantity, Long profileId, Long glassTypeId, Long hardwareKitId) {
+    ProductionOrderItem item = new ProductionOrderItem();
+    item.setOrderId(orderId);
+    item.setProductType("Window");
+    item.setWidthMm(widthMm);
+    item.setHeightMm(heightMm);
+    item.setQuantity(quantity);
+    item.setProfileId(profileId);
+    item.setGlassTypeId(glassTypeId);
+    item.setHardwareKitId(hardwareKitId);
+    itemRepository.save(item);
+  }
+}
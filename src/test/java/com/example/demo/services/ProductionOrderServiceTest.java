@@ -2,20 +2,31 @@ package com.example.demo.services;
 
 import com.example.demo.dto.ProductionOrderDto;
 import com.example.demo.dto.ProductionOrderItemDto;
+import com.example.demo.dto.ProductionOrderItemsPatchDto;
 import com.example.demo.dto.ProductionOrderSummaryDto;
 import com.example.demo.model.ProductionOrder;
+import com.example.demo.model.ProductionOrderEvent;
 import com.example.demo.model.ProductionOrderItem;
 import com.example.demo.repositories.ProductionOrderItemRepository;
 import com.example.demo.repositories.ProductionOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -32,6 +43,18 @@ public class ProductionOrderServiceTest {
   @Mock
   private ProductionOrderItemRepository itemRepository;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Spy
+  private ProductionOrderSummaryCache summaryCache =
+    new ProductionOrderSummaryCache(meterRegistry, Duration.ofMinutes(10), 100);
+
+  @Spy
+  private OrderStatusRegistry statusRegistry = OrderStatusRegistryTest.seededRegistry();
+
   @InjectMocks
   private ProductionOrderService service;
 
@@ -39,81 +62,99 @@ public class ProductionOrderServiceTest {
   void confirm_shouldMoveStatusFromInProgressToScheduled(){
     ProductionOrder order = new ProductionOrder();
     order.setId(10L);
-    order.setStatusId((short) 1);
+    order.setStatusId((short) 2);
     order.setOrderNumber("ORD-2026-10");
 
+    when(repository.confirm(eq(List.of(10L)), eq((short) 1), eq((short) 2), anyString())).thenReturn(1);
     when(repository.findById(10L)).thenReturn(java.util.Optional.of(order));
 
     ProductionOrderDto result = service.confirm(10L);
 
     assertThat(result.getStatusId()).isEqualTo((short)2);
 
-    verify(repository).save(order);
+    verify(repository, never()).save(any());
 
   }
 
   @Test
   void confirm_shouldThrowWhenStatusIsNotInProgress(){
-    ProductionOrder order = new ProductionOrder();
-    order.setId(10L);
-    order.setStatusId((short) 2);
-
-    when(repository.findById(10L)).thenReturn(java.util.Optional.of(order));
+    when(repository.confirm(eq(List.of(10L)), eq((short) 1), eq((short) 2), anyString())).thenReturn(0);
+    when(repository.findProjectedById(10L)).thenReturn(Optional.of(status((short) 2)));
 
     IllegalStateException exception = assertThrows(IllegalStateException.class,()->service.confirm(10L));
 
-    assertThat(exception).isInstanceOf(IllegalStateException.class);
+    assertThat(exception).isInstanceOf(OrderStatusConflictException.class);
+  }
+
+  @Test
+  void transition_shouldPublishStatusChangeOnlyWhenApplied() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(30L);
+    po.setStatusId((short) 3);
+    when(repository.transitionStatus(List.of(30L), (short) 1, (short) 3)).thenReturn(1);
+    when(repository.findById(30L)).thenReturn(Optional.of(po));
+    when(repository.transitionStatus(List.of(31L), (short) 1, (short) 3)).thenReturn(0);
+    when(repository.findProjectedById(31L)).thenReturn(Optional.of(status((short) 2)));
+
+    service.finish(30L);
+    assertThrows(OrderStatusConflictException.class, () -> service.finish(31L));
+
+    ArgumentCaptor<ProductionOrderEvent> captor = ArgumentCaptor.forClass(ProductionOrderEvent.class);
+    verify(eventPublisher).publishEvent(captor.capture());
+    assertThat(captor.getValue().getOrderId()).isEqualTo(30L);
+    assertThat(captor.getValue().getType()).isEqualTo(ProductionOrderEvent.Type.STATUS_CHANGED);
+    assertThat(captor.getValue().getFromStatus()).isEqualTo((short) 1);
+    assertThat(captor.getValue().getToStatus()).isEqualTo((short) 3);
+    assertThat(captor.getValue().getDetails()).isEqualTo("FINISH");
   }
 
   @Test
   void start_shouldMoveStatusFromScheduledToInProgress() {
     ProductionOrder po = new ProductionOrder();
     po.setId(20L);
-    po.setStatusId((short) 2); // SCHEDULED
+    po.setStatusId((short) 1); // IN_PROGRESS tras el UPDATE
 
+    when(repository.transitionStatus(List.of(20L), (short) 2, (short) 1)).thenReturn(1);
     when(repository.findById(20L)).thenReturn(Optional.of(po));
 
     ProductionOrderDto result = service.start(20L);
 
     assertThat(result.getStatusId()).isEqualTo((short) 1); // IN_PROGRESS
-    verify(repository).save(po);
+    verify(repository).transitionStatus(List.of(20L), (short) 2, (short) 1);
   }
 
   @Test
   void finish_shouldMoveStatusFromInProgressToForDelivery() {
     ProductionOrder po = new ProductionOrder();
     po.setId(30L);
-    po.setStatusId((short) 1); // IN_PROGRESS
+    po.setStatusId((short) 3); // FOR_DELIVERY tras el UPDATE
 
+    when(repository.transitionStatus(List.of(30L), (short) 1, (short) 3)).thenReturn(1);
     when(repository.findById(30L)).thenReturn(Optional.of(po));
 
     ProductionOrderDto result = service.finish(30L);
 
     assertThat(result.getStatusId()).isEqualTo((short) 3); // FOR_DELIVERY
-    verify(repository).save(po);
   }
 
   @Test
   void deliver_shouldMoveStatusFromForDeliveryToCompleted() {
     ProductionOrder po = new ProductionOrder();
     po.setId(40L);
-    po.setStatusId((short) 3); // FOR_DELIVERY
+    po.setStatusId((short) 4); // COMPLETED tras el UPDATE
 
+    when(repository.transitionStatus(List.of(40L), (short) 3, (short) 4)).thenReturn(1);
     when(repository.findById(40L)).thenReturn(Optional.of(po));
 
     ProductionOrderDto result = service.deliver(40L);
 
     assertThat(result.getStatusId()).isEqualTo((short) 4); // COMPLETED
-    verify(repository).save(po);
   }
 
   @Test
   void start_shouldThrowWhenStatusIsInvalid() {
-    ProductionOrder po = new ProductionOrder();
-    po.setId(20L);
-    po.setStatusId((short) 1); // debería ser 2 para start
-
-    when(repository.findById(20L)).thenReturn(Optional.of(po));
+    when(repository.transitionStatus(List.of(20L), (short) 2, (short) 1)).thenReturn(0);
+    when(repository.findProjectedById(20L)).thenReturn(Optional.of(status((short) 1))); // debería ser 2 para start
 
     IllegalStateException ex = assertThrows(
       IllegalStateException.class,
@@ -124,7 +165,29 @@ public class ProductionOrderServiceTest {
   }
 
   @Test
-  void addItems_shouldDeletePreviousItemsAndSaveNewOnes() {
+  void start_shouldThrowNotFoundWhenOrderDoesNotExist() {
+    when(repository.transitionStatus(List.of(21L), (short) 2, (short) 1)).thenReturn(0);
+    when(repository.findProjectedById(21L)).thenReturn(Optional.empty());
+
+    assertThrows(IllegalArgumentException.class, () -> service.start(21L));
+  }
+
+  @Test
+  void update_shouldRejectStaleVersion() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(22L);
+    po.setVersion(3L);
+
+    when(repository.findById(22L)).thenReturn(Optional.of(po));
+
+    ProductionOrderDto stale = ProductionOrderDto.builder().orderNumber("ORD-22").customerId(1L).version(2L).build();
+
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.update(22L, stale));
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void addItems_shouldInsertNewItemsInOneBatch() {
     ProductionOrder po = new ProductionOrder();
     po.setId(50L);
 
@@ -140,20 +203,107 @@ public class ProductionOrderServiceTest {
     item2.setHeightMm(2100);
     item2.setQuantity(1);
 
-    when(repository.findById(50L)).thenReturn(Optional.of(po));
+    when(repository.lockForItemChange(50L)).thenReturn(Optional.of(po));
+    when(itemRepository.findByOrderId(50L)).thenReturn(List.of());
 
     service.addItems(50L, List.of(item1, item2));
 
-    verify(itemRepository).deleteByOrderId(50L);
-
-    ArgumentCaptor<ProductionOrderItem> captor = ArgumentCaptor.forClass(ProductionOrderItem.class);
-    verify(itemRepository, times(2)).save(captor.capture());
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<ProductionOrderItem>> captor = ArgumentCaptor.forClass(List.class);
+    verify(itemRepository).saveAll(captor.capture());
 
-    List<ProductionOrderItem> saved = captor.getAllValues();
+    List<ProductionOrderItem> saved = captor.getValue();
     assertThat(saved).hasSize(2);
     assertThat(saved.get(0).getOrderId()).isEqualTo(50L);
     assertThat(saved.get(0).getProductType()).isEqualTo("Window");
     assertThat(saved.get(1).getProductType()).isEqualTo("Door");
+    verify(itemRepository, never()).deleteByOrderIdAndIdIn(anyLong(), anyCollection());
+  }
+
+  @Test
+  void addItems_shouldUpdateKeptItemsAndDeleteOnlyMissingOnes() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(50L);
+
+    ProductionOrderItem kept = existingItem(1L, 50L, "Window", 1000);
+    ProductionOrderItem removed = existingItem(2L, 50L, "Door", 900);
+
+    ProductionOrderItemDto keptDto = new ProductionOrderItemDto();
+    keptDto.setId(1L);
+    keptDto.setProductType("Window");
+    keptDto.setWidthMm(1100);
+    keptDto.setHeightMm(1200);
+    keptDto.setQuantity(1);
+
+    when(repository.lockForItemChange(50L)).thenReturn(Optional.of(po));
+    when(itemRepository.findByOrderId(50L)).thenReturn(List.of(kept, removed));
+
+    service.addItems(50L, List.of(keptDto));
+
+    assertThat(kept.getWidthMm()).isEqualTo(1100);
+    verify(itemRepository).deleteByOrderIdAndIdIn(50L, Set.of(2L));
+    verify(itemRepository, never()).saveAll(anyList());
+  }
+
+  @Test
+  void addItems_shouldRejectItemIdsFromAnotherOrder() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(50L);
+
+    ProductionOrderItemDto foreign = new ProductionOrderItemDto();
+    foreign.setId(99L);
+
+    when(repository.lockForItemChange(50L)).thenReturn(Optional.of(po));
+    when(itemRepository.findByOrderId(50L)).thenReturn(List.of());
+
+    assertThrows(IllegalArgumentException.class, () -> service.addItems(50L, List.of(foreign)));
+  }
+
+  @Test
+  void patchItems_shouldApplyOnlyRequestedChanges() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(50L);
+
+    ProductionOrderItem current = existingItem(1L, 50L, "Window", 1000);
+
+    ProductionOrderItemDto update = new ProductionOrderItemDto();
+    update.setId(1L);
+    update.setProductType("Window");
+    update.setWidthMm(1500);
+    update.setHeightMm(1200);
+    update.setQuantity(3);
+
+    ProductionOrderItemDto insert = new ProductionOrderItemDto();
+    insert.setProductType("Door");
+    insert.setWidthMm(900);
+    insert.setHeightMm(2100);
+    insert.setQuantity(1);
+
+    when(repository.lockForItemChange(50L)).thenReturn(Optional.of(po));
+    when(itemRepository.findByOrderIdAndIdIn(50L, Set.of(1L))).thenReturn(List.of(current));
+
+    List<ProductionOrderItem> result = service.patchItems(50L, ProductionOrderItemsPatchDto.builder()
+      .upsert(List.of(update, insert))
+      .delete(List.of(7L))
+      .build());
+
+    assertThat(result).hasSize(2);
+    assertThat(current.getWidthMm()).isEqualTo(1500);
+    assertThat(current.getQuantity()).isEqualTo(3);
+    verify(itemRepository).deleteByOrderIdAndIdIn(50L, List.of(7L));
+    verify(itemRepository).saveAll(List.of(result.get(1)));
+    verify(itemRepository, never()).findByOrderId(anyLong());
+  }
+
+  private static ProductionOrderItem existingItem(Long id, Long orderId, String productType, int widthMm) {
+    ProductionOrderItem item = new ProductionOrderItem();
+    item.setId(id);
+    item.setOrderId(orderId);
+    item.setProductType(productType);
+    item.setWidthMm(widthMm);
+    item.setHeightMm(1200);
+    item.setQuantity(1);
+    return item;
   }
 
   @Test
@@ -177,6 +327,8 @@ public class ProductionOrderServiceTest {
     i2.setHeightMm(2100);
     i2.setQuantity(1);
 
+    po.setVersion(0L);
+    when(repository.findVersionById(60L)).thenReturn(Optional.of(0L));
     when(repository.findById(60L)).thenReturn(Optional.of(po));
     when(itemRepository.findByOrderId(60L)).thenReturn(List.of(i1, i2));
 
@@ -201,5 +353,113 @@ public class ProductionOrderServiceTest {
     assertThat(summary.getRequirements().getTotalHardwareUnits()).isEqualTo(3);
   }
 
+  @Test
+  void buildSummary_shouldExposeUnroundedValuesThatAddUpToTheTotals() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(61L);
+    List<ProductionOrderItem> items = new ArrayList<>();
+    for (long id = 1; id <= 3; id++) {
+      ProductionOrderItem item = new ProductionOrderItem();
+      item.setId(id);
+      item.setOrderId(61L);
+      item.setProductType("Window");
+      item.setWidthMm(1);
+      item.setHeightMm(500);
+      item.setQuantity(1);
+      items.add(item);
+    }
+    po.setVersion(0L);
+    when(repository.findVersionById(61L)).thenReturn(Optional.of(0L));
+    when(repository.findById(61L)).thenReturn(Optional.of(po));
+    when(itemRepository.findByOrderId(61L)).thenReturn(items);
+
+    ProductionOrderSummaryDto summary = service.buildSummary(61L);
+
+    // redondeados: 0.001 por ítem pero 0.002 en total; en mm² suman exacto
+    assertThat(summary.getItems()).extracting(ProductionOrderSummaryDto.ItemSummary::getGlassSquareMeters)
+      .containsOnly(0.001);
+    assertThat(summary.getRequirements().getTotalGlassSquareMeters()).isEqualTo(0.002);
+    assertThat(summary.getItems()).extracting(ProductionOrderSummaryDto.ItemSummary::getGlassMm2)
+      .containsOnly(500L);
+    assertThat(summary.getRequirements().getTotalGlassMm2()).isEqualTo(1_500L);
+    assertThat(summary.getItems().stream().mapToLong(ProductionOrderSummaryDto.ItemSummary::getProfileMm).sum())
+      .isEqualTo(summary.getRequirements().getTotalProfileMm());
+  }
+
+  @Test
+  void buildSummary_shouldServeFromCacheUntilItemsChange() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(60L);
 
+    po.setVersion(0L);
+    when(repository.findVersionById(60L)).thenReturn(Optional.of(0L));
+    when(repository.findById(60L)).thenReturn(Optional.of(po));
+    when(repository.lockForItemChange(60L)).thenReturn(Optional.of(po));
+    when(itemRepository.findByOrderId(60L)).thenReturn(List.of());
+
+    ProductionOrderSummaryDto first = service.buildSummary(60L);
+    ProductionOrderSummaryDto cached = service.buildSummary(60L);
+    service.addItems(60L, List.of());
+    service.buildSummary(60L);
+
+    assertThat(cached).isSameAs(first);
+    verify(summaryCache).evict(60L);
+    verify(itemRepository, times(2)).findByOrderId(60L);
+    assertThat(meterRegistry.get("orders.summary.cache.hit.ratio").gauge().value()).isEqualTo(1.0 / 3);
+  }
+
+  @Test
+  void buildSummary_shouldNotServeASummaryComputedBeforeAnItemChangeUnderTheNewVersion() {
+    AtomicLong version = new AtomicLong(3);
+    List<ProductionOrderItem> oldItems = List.of(existingItem(1L, 63L, "Window", 1000));
+    List<ProductionOrderItem> newItems = List.of(existingItem(1L, 63L, "Window", 1500));
+    AtomicInteger itemReads = new AtomicInteger();
+    when(repository.findVersionById(63L)).thenAnswer(invocation -> Optional.of(version.get()));
+    when(repository.findById(63L)).thenAnswer(invocation -> {
+      ProductionOrder po = new ProductionOrder();
+      po.setId(63L);
+      po.setVersion(version.get());
+      return Optional.of(po);
+    });
+    when(itemRepository.findByOrderId(63L)).thenAnswer(invocation -> {
+      if (itemReads.getAndIncrement() > 0) {
+        return newItems;
+      }
+      // El cambio de ítems hace commit (versión 4, invalidación incluida) mientras este request
+      // ya leyó la versión 3 pero todavía no guardó su summary
+      version.set(4);
+      summaryCache.evict(63L);
+      return oldItems;
+    });
+
+    ProductionOrderSummaryDto stale = service.buildSummary(63L);
+    ProductionOrderSummaryDto next = service.buildSummary(63L);
+    ProductionOrderSummaryDto cached = service.buildSummary(63L);
+
+    // el summary con los ítems viejos sale con su propia versión, nunca con la 4
+    assertThat(stale.getVersion()).isEqualTo(3L);
+    assertThat(stale.getItems().get(0).getWidthMm()).isEqualTo(1000);
+    assertThat(next.getVersion()).isEqualTo(4L);
+    assertThat(next.getItems().get(0).getWidthMm()).isEqualTo(1500);
+    assertThat(cached).isSameAs(next);
+  }
+
+  @Test
+  void buildSummary_shouldShareASummaryThatCallersCannotModify() {
+    ProductionOrder po = new ProductionOrder();
+    po.setId(62L);
+    po.setVersion(0L);
+    when(repository.findVersionById(62L)).thenReturn(Optional.of(0L));
+    when(repository.findById(62L)).thenReturn(Optional.of(po));
+    when(itemRepository.findByOrderId(62L)).thenReturn(new ArrayList<>(List.of(existingItem(1L, 62L, "Window", 1000))));
+
+    ProductionOrderSummaryDto summary = service.buildSummary(62L);
+
+    assertThrows(UnsupportedOperationException.class, () -> summary.getItems().clear());
+    assertThat(service.buildSummary(62L).getItems()).hasSize(1);
+  }
+
+  private static ProductionOrderRepository.StatusView status(short statusId) {
+    return () -> statusId;
+  }
 }
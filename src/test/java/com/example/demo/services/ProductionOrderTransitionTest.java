@@ -0,0 +1,185 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.BulkTransitionResultDto;
+import com.example.demo.dto.ProductionOrderDto;
+import com.example.demo.model.ProductionOrder;
+import com.example.demo.repositories.OrderStatusRepository;
+import com.example.demo.repositories.ProductionOrderItemRepository;
+import com.example.demo.repositories.ProductionOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductionOrderTransitionTest {
+
+  @Autowired
+  private ProductionOrderRepository repository;
+
+  @Autowired
+  private ProductionOrderItemRepository itemRepository;
+
+  @Autowired
+  private OrderStatusRepository statusRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private ProductionOrderService service;
+  private TransactionTemplate tx;
+
+  @BeforeEach
+  void setUp() {
+    service = new ProductionOrderService(repository, itemRepository,
+      new ProductionOrderSummaryCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), 100),
+      new OrderStatusRegistry(statusRepository), event -> { });
+    tx = new TransactionTemplate(transactionManager);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    repository.deleteAll();
+  }
+
+  @Test
+  void confirm_shouldUpdateStatusVersionAndBlankOrderNumberInOneStatement() {
+    Long id = repository.save(ProductionOrder.builder().orderNumber(" ").customerId(1L).statusId((short) 1).build()).getId();
+
+    ProductionOrderDto confirmed = tx.execute(status -> service.confirm(id));
+
+    assertThat(confirmed.getStatusId()).isEqualTo((short) 2);
+    assertThat(confirmed.getVersion()).isEqualTo(1L);
+    assertThat(confirmed.getOrderNumber()).startsWith("ORD-").endsWith("-" + id);
+    OrderStatusConflictException conflict =
+      assertThrows(OrderStatusConflictException.class, () -> tx.execute(status -> service.confirm(id)));
+    assertThat(conflict.getMessage()).isEqualTo("Estado inválido. Esperado=1 actual=2");
+  }
+
+  @Test
+  void confirm_shouldNumberOrdersWhoseNumberIsWhitespaceOrNull() {
+    ProductionOrderDto input = new ProductionOrderDto();
+    input.setId(123_456L);
+    input.setOrderNumber("\t\n");
+    input.setCustomerId(1L);
+    Long whitespace = tx.execute(status -> service.create(input)).getId();
+
+    // la columna es NOT NULL: se relaja sólo para simular una fila vieja sin número
+    jdbcTemplate.execute("alter table production_orders alter column order_number set null");
+    try {
+      jdbcTemplate.update("insert into production_orders (id, order_uuid, order_number, customer_id, status_id, created_at) "
+        + "values (?, ?, null, 1, 1, current_timestamp)", 900_001L, UUID.randomUUID());
+
+      assertThat(whitespace).isNotEqualTo(123_456L);
+      assertThat(tx.execute(status -> service.confirm(whitespace)).getOrderNumber()).endsWith("-" + whitespace);
+      assertThat(tx.execute(status -> service.confirm(900_001L)).getOrderNumber()).endsWith("-900001");
+    } finally {
+      repository.deleteAll();
+      jdbcTemplate.execute("alter table production_orders alter column order_number set not null");
+    }
+  }
+
+  @Test
+  void transition_shouldLetExactlyOneConcurrentRequestWin() throws Exception {
+    Long id = repository.save(ProductionOrder.builder().orderNumber("ORD-1").customerId(1L).statusId((short) 2).build()).getId();
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Callable<ProductionOrderDto>> attempts = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      attempts.add(() -> tx.execute(status -> service.start(id)));
+    }
+    int won = 0;
+    int conflicts = 0;
+    for (Future<ProductionOrderDto> attempt : pool.invokeAll(attempts)) {
+      try {
+        attempt.get();
+        won++;
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(OrderStatusConflictException.class);
+        conflicts++;
+      }
+    }
+    pool.shutdown();
+
+    assertThat(won).isEqualTo(1);
+    assertThat(conflicts).isEqualTo(7);
+    assertThat(repository.findById(id).orElseThrow().getVersion()).isEqualTo(1L);
+  }
+
+  @Test
+  void update_shouldFailWhenATransitionHappenedAfterTheRead() {
+    Long id = repository.save(ProductionOrder.builder().orderNumber("ORD-1").customerId(1L).statusId((short) 1).build()).getId();
+    ProductionOrderDto read = service.getById(id);
+    tx.executeWithoutResult(status -> service.confirm(id));
+
+    read.setNotes("cambio con versión vieja");
+
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> tx.execute(status -> service.update(id, read)));
+  }
+
+  @Test
+  void transitionAll_shouldApplyOneUpdateAndReportEachOrder() {
+    Long blank = save(" ", (short) 1);
+    Long ready = save("ORD-7", (short) 1);
+    Long scheduled = save("ORD-8", (short) 2);
+
+    BulkTransitionResultDto result = tx.execute(status ->
+      service.transitionAll(OrderTransition.CONFIRM, List.of(scheduled, blank, 999_999L, ready, blank)));
+
+    assertThat(result.getApplied()).isEqualTo(2);
+    assertThat(result.getOutcomes()).extracting(BulkTransitionResultDto.Outcome::getId)
+      .containsExactly(scheduled, blank, 999_999L, ready);
+    assertThat(result.getOutcomes()).extracting(BulkTransitionResultDto.Outcome::getResult).containsExactly(
+      BulkTransitionResultDto.Result.WRONG_STATE, BulkTransitionResultDto.Result.APPLIED,
+      BulkTransitionResultDto.Result.NOT_FOUND, BulkTransitionResultDto.Result.APPLIED);
+    assertThat(result.getOutcomes().get(0).getStatusId()).isEqualTo((short) 2);
+    assertThat(repository.findById(blank).orElseThrow().getOrderNumber()).startsWith("ORD-").endsWith("-" + blank);
+    assertThat(repository.findById(ready).orElseThrow().getOrderNumber()).isEqualTo("ORD-7");
+    assertThat(repository.findById(scheduled).orElseThrow().getVersion()).isZero();
+  }
+
+  @Test
+  void transitionAll_shouldRejectMissingOrNullIds() {
+    List<Long> withNull = new ArrayList<>();
+    withNull.add(null);
+
+    ResponseStatusException missing = assertThrows(ResponseStatusException.class,
+      () -> service.transitionAll(OrderTransition.CONFIRM, null));
+    ResponseStatusException nullId = assertThrows(ResponseStatusException.class,
+      () -> service.transitionAll(OrderTransition.CONFIRM, withNull));
+
+    assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(nullId.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  private Long save(String orderNumber, short statusId) {
+    return repository.save(ProductionOrder.builder().orderNumber(orderNumber).customerId(1L).statusId(statusId).build()).getId();
+  }
+}
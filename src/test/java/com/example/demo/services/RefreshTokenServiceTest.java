@@ -0,0 +1,129 @@
+package com.example.demo.services;
+
+import com.example.demo.model.RefreshToken;
+import com.example.demo.model.User;
+import com.example.demo.repositories.RefreshTokenRepository;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RefreshTokenServiceTest {
+
+  @Autowired
+  private RefreshTokenRepository refreshTokenRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final TokenVersionService tokenVersionService = mock(TokenVersionService.class);
+  private final JwtService jwtService = mock(JwtService.class);
+  private RefreshTokenService service;
+  private TransactionTemplate tx;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    service = new RefreshTokenService(refreshTokenRepository, userRepository, tokenVersionService,
+      mock(TokenRevocationService.class), jwtService, 3_600_000L);
+    tx = new TransactionTemplate(transactionManager);
+    User juan = new User("juan", "juan@example.com", "encoded");
+    juan.setEnabled(true);
+    user = userRepository.save(juan);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    refreshTokenRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void rotate_shouldLetOnlyOneOfTwoConcurrentRefreshesWin() throws Exception {
+    String token = tx.execute(status -> service.issue(user));
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    CyclicBarrier start = new CyclicBarrier(2);
+    List<Callable<RefreshTokenService.Rotation>> attempts = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      attempts.add(() -> {
+        start.await();
+        return tx.execute(status -> service.rotate(token));
+      });
+    }
+    int won = 0;
+    int reused = 0;
+    for (Future<RefreshTokenService.Rotation> attempt : pool.invokeAll(attempts)) {
+      try {
+        attempt.get();
+        won++;
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).hasMessage("Refresh token already used");
+        reused++;
+      }
+    }
+    pool.shutdown();
+
+    assertThat(won).isEqualTo(1);
+    assertThat(reused).isEqualTo(1);
+    verify(tokenVersionService, times(1)).revokeAll(user.getId());
+  }
+
+  @Test
+  void logout_shouldOnlyRevokeTheCallersOwnRefreshToken() {
+    String token = tx.execute(status -> service.issue(user));
+    when(jwtService.verifyToken("other-access")).thenReturn(accessToken("jti-other", user.getId() + 1));
+    when(jwtService.verifyToken("own-access")).thenReturn(accessToken("jti-own", user.getId()));
+
+    tx.executeWithoutResult(status -> service.logout("other-access", token, false));
+    assertThat(refreshTokenRepository.findAll()).extracting(RefreshToken::isRevoked).containsExactly(false);
+
+    tx.executeWithoutResult(status -> service.logout("own-access", token, false));
+    assertThat(refreshTokenRepository.findAll()).extracting(RefreshToken::isRevoked).containsExactly(true);
+  }
+
+  @Test
+  void rotate_shouldRevokeAllSessionsWhenARotatedTokenIsReused() {
+    String token = tx.execute(status -> service.issue(user));
+    RefreshTokenService.Rotation rotation = tx.execute(status -> service.rotate(token));
+
+    RuntimeException reuse = assertThrows(RuntimeException.class,
+      () -> tx.execute(status -> service.rotate(token)));
+
+    assertThat(reuse).hasMessage("Refresh token already used");
+    assertThat(rotation.refreshToken()).isNotEqualTo(token);
+    verify(tokenVersionService).revokeAll(user.getId());
+  }
+
+  private static VerifiedToken accessToken(String id, Long userId) {
+    return new VerifiedToken("juan", id, Instant.now().plusSeconds(60), userId, "juan@example.com", true, List.of(), 0);
+  }
+}
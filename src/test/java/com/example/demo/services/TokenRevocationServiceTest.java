@@ -0,0 +1,41 @@
+package com.example.demo.services;
+
+import com.example.demo.model.RevokedToken;
+import com.example.demo.repositories.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TokenRevocationServiceTest {
+
+  private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+  private final TokenRevocationService service = new TokenRevocationService(repository, 100);
+
+  @Test
+  void revoke_shouldPersistAndRejectJtiUntilExpiry() {
+    service.revoke("jti-1", Instant.now().plusSeconds(60));
+
+    assertThat(service.isRevoked("jti-1")).isTrue();
+    assertThat(service.isRevoked("jti-2")).isFalse();
+    assertThat(service.isRevoked(null)).isFalse();
+    verify(repository).save(any(RevokedToken.class));
+  }
+
+  @Test
+  void sync_shouldLoadRevocationsFromOtherNodes() {
+    when(repository.findByRevokedAtAfterAndExpiresAtAfter(any(), any())).thenReturn(List.of(
+      RevokedToken.builder().jti("remote").expiresAt(Instant.now().plusSeconds(60)).revokedAt(Instant.now()).build()
+    ));
+
+    service.sync();
+
+    assertThat(service.isRevoked("remote")).isTrue();
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.services;
+
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UnverifiedUserSweeperTest {
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @AfterEach
+  void cleanUp() {
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void sweepOnce_shouldDeleteOnlyStaleUnverifiedUsersInBatches() {
+    LocalDateTime longAgo = LocalDateTime.now().minusDays(30);
+    for (int i = 0; i < 5; i++) {
+      save("stale" + i, false, longAgo);
+    }
+    save("recent", false, LocalDateTime.now().minusHours(1));
+    save("verified", true, null);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CachingUserDetailsService userDetailsService = mock(CachingUserDetailsService.class);
+    UnverifiedUserSweeper sweeper = new UnverifiedUserSweeper(userRepository, userDetailsService,
+      new InMemoryVerificationCodeStore(Duration.ofSeconds(1), 8), transactionManager, registry,
+      Duration.ofDays(7), 2);
+
+    long deleted = sweeper.sweepOnce();
+
+    assertThat(deleted).isEqualTo(5);
+    assertThat(userRepository.findAll()).extracting(User::getUsername).containsExactlyInAnyOrder("recent", "verified");
+    assertThat(registry.get("users.unverified.purged").counter().count()).isEqualTo(5.0);
+    verify(userDetailsService).evict("stale0@example.com");
+  }
+
+  private void save(String username, boolean enabled, LocalDateTime verificationExpiresAt) {
+    User user = new User(username, username + "@example.com", "encoded");
+    user.setEnabled(enabled);
+    user.setVerificationCodeExpiresAt(verificationExpiresAt);
+    userRepository.save(user);
+  }
+}